@@ -2,4 +2,6 @@
 
 jar="lexis-service.jar"
 
-nohup java -jar $jar > application.log &
+# Set JAVA_OPTS to pass system properties, for example
+# JAVA_OPTS="-Dlexis.containing.index=suffix-array"
+nohup java $JAVA_OPTS -jar $jar > application.log &
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import com.google.common.base.Strings;
+import tech.sirwellington.alchemy.annotations.access.NonInstantiable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Reads the HTTP headers that decide how the full corpus is sent: {@code Accept-Encoding}, to choose
+ * between the identity and gzip bodies, and {@code If-None-Match}, to skip sending either.
+ *
+ * @author SirWellington
+ */
+@NonInstantiable
+final class ContentNegotiation
+{
+
+    static final String GZIP = "gzip";
+
+    private ContentNegotiation()
+    {
+    }
+
+    /**
+     * @return True if the {@code Accept-Encoding} header allows a gzip body.
+     */
+    static boolean acceptsGzip(String acceptEncoding)
+    {
+        if (Strings.isNullOrEmpty(acceptEncoding))
+        {
+            return false;
+        }
+
+        Double gzip = null;
+        Double any = null;
+
+        for (String coding : acceptEncoding.split(","))
+        {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+
+            if (name.equalsIgnoreCase(GZIP) || name.equalsIgnoreCase("x-gzip"))
+            {
+                gzip = qualityOf(parts);
+            }
+            else if (name.equals("*"))
+            {
+                any = qualityOf(parts);
+            }
+        }
+
+        //An explicit gzip;q=0 turns gzip down, even when * is accepted
+        Double quality = gzip != null ? gzip : any;
+        return quality != null && quality > 0;
+    }
+
+    private static double qualityOf(String[] parts)
+    {
+        for (int i = 1; i < parts.length; ++i)
+        {
+            String parameter = parts[i].trim();
+
+            if (parameter.startsWith("q=") || parameter.startsWith("Q="))
+            {
+                try
+                {
+                    return Double.parseDouble(parameter.substring(2));
+                }
+                catch (NumberFormatException ex)
+                {
+                    return 0;
+                }
+            }
+        }
+
+        return 1;
+    }
+
+    /**
+     * @return The value as a strong entity tag, in quotes.
+     */
+    static String strongETag(String value)
+    {
+        checkThat(value).is(notNull());
+
+        return '"' + value + '"';
+    }
+
+    /**
+     * @return True if the {@code If-None-Match} header names {@code etag}, in which case the client's
+     *         copy is current. Entity tags are compared weakly, as the header calls for.
+     */
+    static boolean matchesETag(String ifNoneMatch, String etag)
+    {
+        checkThat(etag).is(notNull());
+
+        if (Strings.isNullOrEmpty(ifNoneMatch))
+        {
+            return false;
+        }
+
+        if (ifNoneMatch.trim().equals("*"))
+        {
+            return true;
+        }
+
+        String opaqueTag = withoutWeakPrefix(etag);
+
+        for (String tag : ifNoneMatch.split(","))
+        {
+            if (withoutWeakPrefix(tag.trim()).equals(opaqueTag))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String withoutWeakPrefix(String tag)
+    {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.redroma.lexis.service.words.JSONConvertible;
+import tech.redroma.lexis.service.words.LexisWord;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * The words of the Lexis Database, along with a version that identifies them.
+ * <p>
+ * The JSON is read as a stream, and split into chunks of whole words that are parsed in parallel,
+ * so neither the text of the file nor a tree of all of it is ever held in memory. The words keep the order
+ * they have in the file. The version is a hash of the bytes of the file, worked out as they are read.
+ *
+ * @author SirWellington
+ */
+final class Corpus
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(Corpus.class);
+
+    static final Corpus EMPTY = new Corpus(Collections.emptyList(), versionOf(Hashing.murmur3_128().newHasher().hash()));
+
+    /** The number of characters in a version. */
+    static final int VERSION_LENGTH = 16;
+
+    /** About how many characters of JSON each task parses. */
+    static final int CHUNK_SIZE = 1 << 18;
+
+    private final List<LexisWord> words;
+    private final String version;
+    private final List<String> failures;
+
+    Corpus(List<LexisWord> words, String version)
+    {
+        this(words, version, Collections.emptyList());
+    }
+
+    private Corpus(List<LexisWord> words, String version, List<String> failures)
+    {
+        this.words = words;
+        this.version = version;
+        this.failures = failures;
+    }
+
+    /**
+     * Reads a JSON array of words, on the common fork/join pool. Elements that are not objects are skipped.
+     *
+     * @throws IOException If the stream cannot be read, or does not hold a JSON array.
+     */
+    static Corpus read(InputStream input) throws IOException
+    {
+        return read(input, ForkJoinPool.commonPool(), CHUNK_SIZE);
+    }
+
+    /**
+     * Like {@link #read(InputStream)}, on the given pool.
+     *
+     * @param chunkSize The number of characters of JSON to parse in each task.
+     */
+    static Corpus read(InputStream input, ForkJoinPool pool, int chunkSize) throws IOException
+    {
+        checkThat(input, pool).are(notNull());
+
+        long begin = System.currentTimeMillis();
+
+        HashingInputStream hashing = new HashingInputStream(Hashing.murmur3_128(), input);
+        List<LexisWord> words = new ArrayList<>();
+        List<String> failures = Lists.create();
+
+        //Chunks are collected in the order they were read, which keeps the order of the words
+        Deque<ForkJoinTask<Chunk>> pending = new ArrayDeque<>();
+        int maxPending = 2 * pool.getParallelism();
+
+        try (Reader reader = new InputStreamReader(hashing, UTF_8))
+        {
+            JsonArrayChunker chunker = new JsonArrayChunker(reader, chunkSize);
+            int index = 0;
+
+            for (String json = chunker.next(); json != null; json = chunker.next())
+            {
+                int chunk = index++;
+                String text = json;
+                pending.add(pool.submit(() -> Chunk.parse(chunk, text)));
+
+                //Don't let the reader get too far ahead of the parsers, or the whole file ends up in memory
+                while (pending.size() > maxPending)
+                {
+                    pending.remove().join().addTo(words, failures);
+                }
+            }
+
+            //The chunker stops at the end of the array, but the version covers every byte
+            drain(hashing);
+        }
+
+        while (!pending.isEmpty())
+        {
+            pending.remove().join().addTo(words, failures);
+        }
+
+        if (!failures.isEmpty())
+        {
+            LOG.error("Failed to parse {} chunks of the corpus: {}", failures.size(), failures);
+        }
+
+        Corpus corpus = new Corpus(words, versionOf(hashing.hash()), failures);
+
+        long latency = System.currentTimeMillis() - begin;
+        LOG.info("Read {} words in {}ms on {} threads", words.size(), latency, pool.getParallelism());
+
+        return corpus;
+    }
+
+    private static void drain(InputStream input) throws IOException
+    {
+        byte[] buffer = new byte[8192];
+
+        while (input.read(buffer) >= 0)
+        {
+        }
+    }
+
+    private static String versionOf(HashCode hash)
+    {
+        return hash.toString().substring(0, VERSION_LENGTH);
+    }
+
+    List<LexisWord> words()
+    {
+        return words;
+    }
+
+    /**
+     * @return Identifies the contents of the corpus, so that word ids handed out to clients can be
+     *         recognized as stale after it changes.
+     */
+    String version()
+    {
+        return version;
+    }
+
+    /**
+     * @return A description of each chunk of JSON that failed to parse. The words of a chunk that come
+     *         after the error are missing from the corpus.
+     */
+    List<String> failures()
+    {
+        return failures;
+    }
+
+    /**
+     * The words parsed from one chunk of the JSON array.
+     */
+    private static final class Chunk
+    {
+
+        private final List<LexisWord> words;
+        private final String failure;
+
+        private Chunk(List<LexisWord> words, String failure)
+        {
+            this.words = words;
+            this.failure = failure;
+        }
+
+        /**
+         * Parses a JSON array of words, keeping the words that come before any error.
+         */
+        static Chunk parse(int index, String json)
+        {
+            List<LexisWord> words = Lists.create();
+
+            try (JsonReader reader = new JsonReader(new StringReader(json)))
+            {
+                reader.beginArray();
+
+                while (reader.hasNext())
+                {
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT)
+                    {
+                        reader.skipValue();
+                        continue;
+                    }
+
+                    JsonObject object = JSONConvertible.GSON.fromJson(reader, JsonObject.class);
+                    LexisWord word = LexisWord.fromJSON(object);
+
+                    if (word != null)
+                    {
+                        words.add(word);
+                    }
+                }
+
+                reader.endArray();
+            }
+            catch (IOException | RuntimeException ex)
+            {
+                String failure = "Chunk " + index + ", after " + words.size() + " words: " + ex.getMessage();
+                return new Chunk(words, failure);
+            }
+
+            return new Chunk(words, null);
+        }
+
+        void addTo(List<LexisWord> words, List<String> failures)
+        {
+            words.addAll(this.words);
+
+            if (failure != null)
+            {
+                failures.add(failure);
+            }
+        }
+    }
+
+}
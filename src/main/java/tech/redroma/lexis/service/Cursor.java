@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import tech.sirwellington.alchemy.annotations.access.NonInstantiable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Encodes the position of a page of results as an opaque token, made of the version of the corpus
+ * and the id of the last word on the page. A cursor from another version of the corpus is rejected,
+ * since word ids change between versions.
+ *
+ * @author SirWellington
+ */
+@NonInstantiable
+final class Cursor
+{
+
+    private static final char SEPARATOR = ':';
+
+    private Cursor()
+    {
+    }
+
+    static String encode(String corpusVersion, int lastWordId)
+    {
+        checkThat(corpusVersion).is(notNull());
+
+        String cursor = corpusVersion + SEPARATOR + lastWordId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The id of the last word on the page before the cursor.
+     *
+     * @throws IllegalArgumentException If the cursor is malformed, or from another version of the corpus.
+     */
+    static int decode(String cursor, String corpusVersion) throws IllegalArgumentException
+    {
+        checkThat(cursor, corpusVersion).are(notNull());
+
+        String decoded;
+        try
+        {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            throw new IllegalArgumentException("Malformed cursor: '" + cursor + "'");
+        }
+
+        int separator = decoded.lastIndexOf(SEPARATOR);
+
+        if (separator < 0)
+        {
+            throw new IllegalArgumentException("Malformed cursor: '" + cursor + "'");
+        }
+
+        if (!decoded.substring(0, separator).equals(corpusVersion))
+        {
+            throw new IllegalArgumentException("The cursor is from another version of the corpus. Start again without one.");
+        }
+
+        try
+        {
+            int lastWordId = Integer.parseInt(decoded.substring(separator + 1));
+
+            if (lastWordId >= 0)
+            {
+                return lastWordId;
+            }
+        }
+        catch (NumberFormatException ex)
+        {
+        }
+
+        throw new IllegalArgumentException("Malformed cursor: '" + cursor + "'");
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time by which a search must finish.
+ * <p>
+ * Searches check it as they go, and stop looking at candidates once it has passed, so that a search
+ * running out of time returns the matches it found so far instead of holding on to its thread.
+ * Afterwards, {@link #wasMissed()} tells whether any candidates were skipped.
+ *
+ * @author SirWellington
+ */
+final class Deadline
+{
+
+    /** A deadline that never passes. */
+    static final Deadline NONE = new Deadline(0);
+
+    private final long expiresAt;
+    private volatile boolean missed;
+
+    private Deadline(long expiresAt)
+    {
+        this.expiresAt = expiresAt;
+    }
+
+    static Deadline after(long millis)
+    {
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * @return True once the deadline has passed, at which point the caller should stop searching.
+     */
+    boolean hasPassed()
+    {
+        if (this == NONE)
+        {
+            return false;
+        }
+
+        if (System.nanoTime() - expiresAt >= 0)
+        {
+            missed = true;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * @return How many milliseconds are left before the deadline passes, which is zero once it has,
+     *         or {@link Long#MAX_VALUE} for {@link #NONE}.
+     */
+    long remainingMillis()
+    {
+        if (this == NONE)
+        {
+            return Long.MAX_VALUE;
+        }
+
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAt - System.nanoTime()));
+    }
+
+    /**
+     * @return True if a search gave up because of this deadline, so that its results may be incomplete.
+     */
+    boolean wasMissed()
+    {
+        return missed;
+    }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.redroma.lexis.service.words.PackedStrings;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * An inverted index from the English words used in definitions to the Latin words they define.
+ * <p>
+ * Any run of letters in a search term must appear inside a single token of a matching definition,
+ * so the candidates are the words whose definitions use a token containing the longest run. Those tokens
+ * are found through an index of the trigrams of the vocabulary, and only runs shorter than a trigram
+ * have to be checked against every token. Each candidate is then checked against its definitions,
+ * so the results are exactly those of a substring search over the {@linkplain LatinNormalizer normalized}
+ * definition terms.
+ *
+ * @author SirWellington
+ */
+final class DefinitionIndex
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(DefinitionIndex.class);
+
+    private final PackedStrings definitionKeys;
+    private final Map<String, int[]> postings;
+    /** The distinct tokens, in sorted order. */
+    private final String[] vocabulary;
+    /** The positions in the vocabulary of the tokens containing each trigram. */
+    private final Map<Long, int[]> vocabularyTrigrams;
+
+    private DefinitionIndex(PackedStrings definitionKeys,
+                            Map<String, int[]> postings,
+                            String[] vocabulary,
+                            Map<Long, int[]> vocabularyTrigrams)
+    {
+        this.definitionKeys = definitionKeys;
+        this.postings = postings;
+        this.vocabulary = vocabulary;
+        this.vocabularyTrigrams = vocabularyTrigrams;
+    }
+
+    /**
+     * @param definitionKeys The normalized keys of the definition terms of each word, grouped by word id.
+     */
+    static DefinitionIndex of(PackedStrings definitionKeys)
+    {
+        checkThat(definitionKeys).is(notNull());
+
+        long begin = System.currentTimeMillis();
+
+        Map<String, Postings.Builder> builders = new HashMap<>();
+
+        for (int id = 0; id < definitionKeys.size(); ++id)
+        {
+            for (int t = 0; t < definitionKeys.sizeOf(id); ++t)
+            {
+                for (String token : tokenize(definitionKeys.get(id, t)))
+                {
+                    builders.computeIfAbsent(token, key -> new Postings.Builder()).add(id);
+                }
+            }
+        }
+
+        Map<String, int[]> postings = new HashMap<>(builders.size() * 2);
+        builders.forEach((token, builder) -> postings.put(token, builder.build()));
+
+        String[] vocabulary = postings.keySet().toArray(new String[0]);
+        Arrays.sort(vocabulary);
+
+        Map<Long, Postings.Builder> trigramBuilders = new HashMap<>();
+
+        for (int position = 0; position < vocabulary.length; ++position)
+        {
+            String token = vocabulary[position];
+
+            for (int i = 0; i + TrigramIndex.GRAM_LENGTH <= token.length(); ++i)
+            {
+                trigramBuilders.computeIfAbsent(TrigramIndex.trigramAt(token, i), key -> new Postings.Builder()).add(position);
+            }
+        }
+
+        Map<Long, int[]> vocabularyTrigrams = new HashMap<>(trigramBuilders.size() * 2);
+        trigramBuilders.forEach((trigram, builder) -> vocabularyTrigrams.put(trigram, builder.build()));
+
+        long latency = System.currentTimeMillis() - begin;
+        LOG.info("Indexed {} definition tokens and {} of their trigrams in {}ms",
+                 postings.size(), vocabularyTrigrams.size(), latency);
+
+        return new DefinitionIndex(definitionKeys, postings, vocabulary, vocabularyTrigrams);
+    }
+
+    /**
+     * @return The ids of all the words with a definition term containing {@code term}, in ascending order.
+     */
+    int[] wordsWithDefinitionContaining(String term)
+    {
+        return planFor(term, true).stream(Deadline.NONE).toArray();
+    }
+
+    /**
+     * Terms with a token are looked up by the words whose definitions use a token containing it.
+     * Terms made only of punctuation and spaces have to be checked against every word.
+     *
+     * @param readsAll Whether the caller will read every match, rather than stopping after the first few.
+     */
+    SearchPlan planFor(String term, boolean readsAll)
+    {
+        checkThat(term).is(notNull());
+
+        String key = LatinNormalizer.normalize(term);
+        String piece = longestToken(key);
+        int[] candidates = piece.isEmpty() ? null : candidatesFor(piece);
+
+        return SearchPlan.choose(candidates, definitionKeys.size(), id -> definitionKeys.anyContains(id, key), readsAll);
+    }
+
+    /**
+     * Collects the words whose definitions use a token containing {@code piece}.
+     */
+    private int[] candidatesFor(String piece)
+    {
+        int[] tokens = tokensContaining(piece);
+
+        if (tokens.length == 1)
+        {
+            //Usually the piece is a whole token that no other token contains
+            return postings.get(vocabulary[tokens[0]]);
+        }
+
+        Postings.Builder candidates = new Postings.Builder();
+
+        for (int token : tokens)
+        {
+            for (int id : postings.get(vocabulary[token]))
+            {
+                candidates.add(id);
+            }
+        }
+
+        return candidates.build();
+    }
+
+    /**
+     * @return The positions in the vocabulary of the tokens containing {@code piece}.
+     */
+    private int[] tokensContaining(String piece)
+    {
+        if (piece.length() < TrigramIndex.GRAM_LENGTH)
+        {
+            return scanVocabulary(piece);
+        }
+
+        int[] positions = null;
+
+        for (int i = 0; i + TrigramIndex.GRAM_LENGTH <= piece.length(); ++i)
+        {
+            int[] list = vocabularyTrigrams.get(TrigramIndex.trigramAt(piece, i));
+
+            if (list == null)
+            {
+                return Postings.EMPTY;
+            }
+
+            positions = positions == null ? list : Postings.intersect(positions, list);
+        }
+
+        //Having every trigram of the piece does not make a token contain it
+        return Arrays.stream(positions)
+            .filter(position -> vocabulary[position].contains(piece))
+            .toArray();
+    }
+
+    /**
+     * Pieces shorter than a trigram have no entry in the trigram index, so every token is checked.
+     */
+    private int[] scanVocabulary(String piece)
+    {
+        Postings.Builder positions = new Postings.Builder();
+
+        for (int position = 0; position < vocabulary.length; ++position)
+        {
+            if (vocabulary[position].contains(piece))
+            {
+                positions.add(position);
+            }
+        }
+
+        return positions.build();
+    }
+
+    /**
+     * Splits a string into its maximal runs of letters and digits.
+     */
+    static List<String> tokenize(String string)
+    {
+        List<String> tokens = Lists.create();
+
+        int start = -1;
+        for (int i = 0; i <= string.length(); ++i)
+        {
+            boolean isTokenCharacter = i < string.length() && Character.isLetterOrDigit(string.charAt(i));
+
+            if (isTokenCharacter && start < 0)
+            {
+                start = i;
+            }
+            else if (!isTokenCharacter && start >= 0)
+            {
+                tokens.add(string.substring(start, i));
+                start = -1;
+            }
+        }
+
+        return tokens;
+    }
+
+    private static String longestToken(String string)
+    {
+        String longest = "";
+
+        for (String token : tokenize(string))
+        {
+            if (token.length() > longest.length())
+            {
+                longest = token;
+            }
+        }
+
+        return longest;
+    }
+
+    int size()
+    {
+        return postings.size();
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Strings;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * One bitmap per constant of an enum, marking the words that carry that constant.
+ * <p>
+ * A word is filtered on a facet by testing a single bit, and several values of a facet are combined
+ * with a word-aligned OR of their bitmaps.
+ *
+ * @author SirWellington
+ * @param <E> The enum the words are faceted on.
+ */
+final class Facet<E extends Enum<E>>
+{
+
+    private final String parameter;
+    private final Class<E> type;
+
+    /** The words carrying each constant, indexed by ordinal. */
+    private final BitSet[] bitmaps;
+
+    private Facet(String parameter, Class<E> type, BitSet[] bitmaps)
+    {
+        this.parameter = parameter;
+        this.type = type;
+        this.bitmaps = bitmaps;
+    }
+
+    /**
+     * @param parameter The name of the query parameter that filters on this facet.
+     * @param type      The enum the words are faceted on.
+     * @param wordCount The number of words to index.
+     * @param valueOf   Returns the value of a word for this facet, by word id, or null if it has none.
+     */
+    static <E extends Enum<E>> Facet<E> of(String parameter,
+                                           Class<E> type,
+                                           int wordCount,
+                                           IntFunction<E> valueOf)
+    {
+        checkThat(parameter).is(nonEmptyString());
+        checkThat(type, valueOf).are(notNull());
+
+        E[] constants = type.getEnumConstants();
+        BitSet[] bitmaps = new BitSet[constants.length];
+
+        for (int i = 0; i < bitmaps.length; ++i)
+        {
+            bitmaps[i] = new BitSet(wordCount);
+        }
+
+        for (int id = 0; id < wordCount; ++id)
+        {
+            E value = valueOf.apply(id);
+
+            if (value != null)
+            {
+                bitmaps[value.ordinal()].set(id);
+            }
+        }
+
+        return new Facet<>(parameter, type, bitmaps);
+    }
+
+    String parameter()
+    {
+        return parameter;
+    }
+
+    /**
+     * @return The words carrying {@code value}. The bitmap is shared, and must not be modified.
+     */
+    BitSet wordsWith(E value)
+    {
+        checkThat(value).is(notNull());
+
+        return bitmaps[value.ordinal()];
+    }
+
+    /**
+     * @param values A comma-separated list of the names of constants, such as {@code "A,B"}.
+     *
+     * @return A new bitmap of the words carrying any of the values.
+     *
+     * @throws IllegalArgumentException If a value is not the name of a constant.
+     */
+    BitSet wordsWithAny(String values) throws IllegalArgumentException
+    {
+        checkThat(values).is(notNull());
+
+        BitSet matches = new BitSet();
+
+        for (String name : values.split(",", -1))
+        {
+            matches.or(wordsWith(parse(name.trim())));
+        }
+
+        return matches;
+    }
+
+    /**
+     * @param values A comma-separated list of the names of constants, such as {@code "b,A,a"}.
+     *
+     * @return The same values, spelled as their constants, in declaration order and without duplicates,
+     *         such as {@code "A,B"}. Lists that select the same words give the same string.
+     *
+     * @throws IllegalArgumentException If a value is not the name of a constant.
+     */
+    String canonicalValues(String values) throws IllegalArgumentException
+    {
+        checkThat(values).is(notNull());
+
+        EnumSet<E> constants = EnumSet.noneOf(type);
+
+        for (String name : values.split(",", -1))
+        {
+            constants.add(parse(name.trim()));
+        }
+
+        return constants.stream()
+            .map(Enum::name)
+            .collect(Collectors.joining(","));
+    }
+
+    private E parse(String name)
+    {
+        if (!Strings.isNullOrEmpty(name))
+        {
+            for (E constant : type.getEnumConstants())
+            {
+                if (constant.name().equalsIgnoreCase(name))
+                {
+                    return constant;
+                }
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown value for " + parameter + ": '" + name + "'");
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Function;
+
+import com.google.common.base.Strings;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Restricts search results to the words matching the {@linkplain Facet facets} named in a request.
+ * <p>
+ * The values given for one facet are combined with OR, and the facets are combined with AND,
+ * so {@code ?age=C&frequency=A,B} keeps the words from age C with a frequency of A or B,
+ * and {@code ?wordType=Verb&conjugation=Third} keeps the verbs of the third conjugation.
+ *
+ * @author SirWellington
+ */
+final class FacetFilter
+{
+
+    /**
+     * Lets every word through.
+     */
+    static final FacetFilter NONE = new FacetFilter(null, "");
+
+    /** The words that pass the filter, or null if every word does. */
+    private final BitSet mask;
+
+    /** The facets and values the filter was built from, in canonical form. */
+    private final String key;
+
+    private FacetFilter(BitSet mask, String key)
+    {
+        this.mask = mask;
+        this.key = key;
+    }
+
+    /**
+     * @param parameters Returns the value of a query parameter, or null if it is absent.
+     * @param facets     The facets that may be filtered on.
+     *
+     * @throws IllegalArgumentException If a parameter names an unknown value.
+     */
+    static FacetFilter fromQuery(Function<String, String> parameters, List<? extends Facet<?>> facets) throws IllegalArgumentException
+    {
+        checkThat(parameters, facets).are(notNull());
+
+        BitSet mask = null;
+        StringBuilder key = new StringBuilder();
+
+        for (Facet<?> facet : facets)
+        {
+            String values = parameters.apply(facet.parameter());
+
+            if (Strings.isNullOrEmpty(values))
+            {
+                continue;
+            }
+
+            BitSet matches = facet.wordsWithAny(values);
+            key.append(facet.parameter()).append('=').append(facet.canonicalValues(values)).append('&');
+
+            if (mask == null)
+            {
+                mask = matches;
+            }
+            else
+            {
+                mask.and(matches);
+            }
+        }
+
+        return mask == null ? NONE : new FacetFilter(mask, key.toString());
+    }
+
+    /**
+     * @return The facets and values that the filter was built from, in the order of the facets, with each list
+     *         of values in {@linkplain Facet#canonicalValues(String) canonical form}. Requests that filter on the
+     *         same values give the same key, however their parameters were ordered or spelled.
+     */
+    String key()
+    {
+        return key;
+    }
+
+    boolean isEmpty()
+    {
+        return mask == null;
+    }
+
+    boolean matches(int wordId)
+    {
+        return mask == null || mask.get(wordId);
+    }
+
+    /**
+     * @return The ids in {@code wordIds} that pass the filter, in the same order.
+     */
+    int[] apply(int[] wordIds)
+    {
+        checkThat(wordIds).is(notNull());
+
+        if (mask == null)
+        {
+            return wordIds;
+        }
+
+        return Arrays.stream(wordIds)
+            .filter(mask::get)
+            .toArray();
+    }
+
+    /**
+     * Removes the words that do not pass the filter from a bitmap of matches, by ANDing whole words
+     * of the bitmaps rather than checking each match.
+     *
+     * @return The same bitmap.
+     */
+    BitSet apply(BitSet wordIds)
+    {
+        checkThat(wordIds).is(notNull());
+
+        if (mask != null)
+        {
+            wordIds.and(mask);
+        }
+
+        return wordIds;
+    }
+
+}
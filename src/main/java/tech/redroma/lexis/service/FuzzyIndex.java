@@ -0,0 +1,240 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * A BK-tree over the distinct form keys in the corpus, used to find the words with a form within
+ * a few edits of a search term.
+ * <p>
+ * Each child of a node is keyed by its edit distance to that node. By the triangle inequality,
+ * a form within {@code k} edits of the term can only be found under children keyed between
+ * {@code d - k} and {@code d + k}, where {@code d} is the distance from the term to the node,
+ * so most of the tree is never visited.
+ *
+ * @author SirWellington
+ */
+final class FuzzyIndex
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(FuzzyIndex.class);
+
+    private final Node root;
+
+    private FuzzyIndex(Node root)
+    {
+        this.root = root;
+    }
+
+    /**
+     * @param formKeys The normalized keys of the forms of each word, indexed by word id.
+     */
+    static FuzzyIndex of(String[][] formKeys)
+    {
+        checkThat(formKeys).is(notNull());
+
+        long begin = System.currentTimeMillis();
+
+        Map<String, Postings.Builder> builders = new HashMap<>();
+
+        for (int id = 0; id < formKeys.length; ++id)
+        {
+            for (String form : formKeys[id])
+            {
+                builders.computeIfAbsent(form, key -> new Postings.Builder(1)).add(id);
+            }
+        }
+
+        //Inserting forms in sorted order makes for a lopsided tree
+        List<String> forms = new ArrayList<>(builders.keySet());
+        Collections.sort(forms);
+        Collections.shuffle(forms, new Random(forms.size()));
+
+        Node root = null;
+
+        for (String form : forms)
+        {
+            Node node = new Node(form, builders.get(form).build());
+
+            if (root == null)
+            {
+                root = node;
+            }
+            else
+            {
+                root.insert(node);
+            }
+        }
+
+        long latency = System.currentTimeMillis() - begin;
+        LOG.info("Built BK-tree of {} forms in {}ms", forms.size(), latency);
+
+        return new FuzzyIndex(root);
+    }
+
+    /**
+     * @return The ids of all the words with a form no more than {@code maxEdits} edits away from {@code term},
+     *         in ascending order. The term is normalized first. Once the deadline has passed,
+     *         the rest of the tree is skipped.
+     */
+    int[] wordsWithin(String term, int maxEdits, Deadline deadline)
+    {
+        checkThat(term, deadline).are(notNull());
+
+        String key = LatinNormalizer.normalize(term);
+
+        if (root == null)
+        {
+            return Postings.EMPTY;
+        }
+
+        Postings.Builder matches = new Postings.Builder();
+
+        Deque<Node> nodes = new ArrayDeque<>();
+        nodes.push(root);
+
+        while (!nodes.isEmpty() && !deadline.hasPassed())
+        {
+            Node node = nodes.pop();
+            int distance = distance(key, node.form);
+
+            if (distance <= maxEdits)
+            {
+                for (int id : node.wordIds)
+                {
+                    matches.add(id);
+                }
+            }
+
+            for (int i = 0; i < node.childCount; ++i)
+            {
+                if (Math.abs(node.childDistances[i] - distance) <= maxEdits)
+                {
+                    nodes.push(node.children[i]);
+                }
+            }
+        }
+
+        return matches.build();
+    }
+
+    /**
+     * @return The Levenshtein distance between the two strings.
+     */
+    static int distance(String first, String second)
+    {
+        int[] previous = new int[second.length() + 1];
+        int[] current = new int[second.length() + 1];
+
+        for (int j = 0; j <= second.length(); ++j)
+        {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= first.length(); ++i)
+        {
+            current[0] = i;
+            char character = first.charAt(i - 1);
+
+            for (int j = 1; j <= second.length(); ++j)
+            {
+                int substitution = previous[j - 1] + (character == second.charAt(j - 1) ? 0 : 1);
+                int insertion = current[j - 1] + 1;
+                int deletion = previous[j] + 1;
+
+                current[j] = Math.min(substitution, Math.min(insertion, deletion));
+            }
+
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return previous[second.length()];
+    }
+
+    private static final class Node
+    {
+
+        private final String form;
+        private final int[] wordIds;
+
+        private int[] childDistances = new int[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+
+        Node(String form, int[] wordIds)
+        {
+            this.form = form;
+            this.wordIds = wordIds;
+        }
+
+        void insert(Node node)
+        {
+            Node parent = this;
+
+            while (true)
+            {
+                int distance = distance(node.form, parent.form);
+                Node child = parent.childAt(distance);
+
+                if (child == null)
+                {
+                    parent.addChild(distance, node);
+                    return;
+                }
+
+                parent = child;
+            }
+        }
+
+        private Node childAt(int distance)
+        {
+            for (int i = 0; i < childCount; ++i)
+            {
+                if (childDistances[i] == distance)
+                {
+                    return children[i];
+                }
+            }
+
+            return null;
+        }
+
+        private void addChild(int distance, Node child)
+        {
+            if (childCount == children.length)
+            {
+                int capacity = Math.max(2, childCount * 2);
+                childDistances = Arrays.copyOf(childDistances, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+
+            childDistances[childCount] = distance;
+            children[childCount] = child;
+            ++childCount;
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.lexis.service.words.Inflections;
+import tech.redroma.lexis.service.words.LexisWord;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Maps every {@linkplain Inflections generated inflection} of every word back to the words it
+ * could be an inflection of.
+ * <p>
+ * There are millions of inflections, so the index keeps no strings. Each entry packs a 40-bit hash
+ * of an inflection's key together with a 24-bit word id into one {@code long}, and all the entries
+ * are sorted in bulk into a single array. A lookup finds the entries for its hash with a binary search,
+ * and then confirms each candidate by generating its inflections again, which also weeds out
+ * hash collisions.
+ *
+ * @author SirWellington
+ */
+final class InflectionIndex
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(InflectionIndex.class);
+
+    private static final int ID_BITS = 24;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    private static final long HASH_MASK = (1L << (64 - ID_BITS)) - 1;
+
+    private final List<LexisWord> words;
+    private final long[] entries;
+
+    private InflectionIndex(List<LexisWord> words, long[] entries)
+    {
+        this.words = words;
+        this.entries = entries;
+    }
+
+    static InflectionIndex of(List<LexisWord> words)
+    {
+        checkThat(words).is(notNull());
+
+        if (words.size() > ID_MASK)
+        {
+            throw new IllegalArgumentException("Too many words to index their inflections: " + words.size());
+        }
+
+        long begin = System.currentTimeMillis();
+
+        long[] entries = new long[words.size() * 16];
+        int size = 0;
+
+        for (int id = 0; id < words.size(); ++id)
+        {
+            for (String inflection : Inflections.of(words.get(id)))
+            {
+                if (size == entries.length)
+                {
+                    entries = Arrays.copyOf(entries, size * 2);
+                }
+
+                entries[size++] = entryFor(LatinNormalizer.normalize(inflection), id);
+            }
+        }
+
+        entries = Arrays.copyOf(entries, size);
+        Arrays.sort(entries);
+
+        long latency = System.currentTimeMillis() - begin;
+        LOG.info("Indexed {} inflections in {}ms, using about {} bytes", size, latency, 8L * size);
+
+        return new InflectionIndex(words, entries);
+    }
+
+    /**
+     * @return The ids of all the words that {@code form} is an inflection of, in ascending order.
+     *         The form is normalized first.
+     */
+    int[] lemmasOf(String form)
+    {
+        checkThat(form).is(notNull());
+
+        String key = LatinNormalizer.normalize(form);
+        long first = entryFor(key, 0);
+
+        int position = Arrays.binarySearch(entries, first);
+        if (position < 0)
+        {
+            position = -position - 1;
+        }
+
+        Postings.Builder lemmas = new Postings.Builder();
+
+        for (int i = position; i < entries.length && (entries[i] & ~ID_MASK) == first; ++i)
+        {
+            int id = (int) (entries[i] & ID_MASK);
+
+            if (isInflectionOf(key, id))
+            {
+                lemmas.add(id);
+            }
+        }
+
+        return lemmas.build();
+    }
+
+    int size()
+    {
+        return entries.length;
+    }
+
+    private boolean isInflectionOf(String key, int id)
+    {
+        for (String inflection : Inflections.of(words.get(id)))
+        {
+            if (LatinNormalizer.normalize(inflection).equals(key))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static long entryFor(String key, int id)
+    {
+        return ((hash(key) & HASH_MASK) << ID_BITS) | id;
+    }
+
+    /**
+     * A 64-bit FNV-1a hash, which spreads short keys better than {@link String#hashCode()}.
+     */
+    private static long hash(String key)
+    {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < key.length(); ++i)
+        {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        return hash;
+    }
+
+}
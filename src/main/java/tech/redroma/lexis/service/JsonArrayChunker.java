@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Splits a large JSON array into smaller arrays of consecutive elements, so that they can be parsed independently.
+ * <p>
+ * Finding where the elements of the array end only takes tracking the depth of nesting and whether the text
+ * is inside a string, which is far cheaper than parsing it. The elements themselves are copied as they are,
+ * so any error in them is left for the parser of their chunk to find.
+ *
+ * @author SirWellington
+ */
+final class JsonArrayChunker
+{
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader reader;
+    private final int chunkSize;
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private int position;
+    private int limit;
+    private boolean started;
+    private boolean finished;
+
+    /**
+     * @param chunkSize The number of characters after which a chunk ends, at the end of the element being read.
+     */
+    JsonArrayChunker(Reader reader, int chunkSize)
+    {
+        checkThat(reader).is(notNull());
+
+        this.reader = reader;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return The next elements of the array, as an array of their own, or null once there are no more.
+     *
+     * @throws IOException If the text cannot be read, or is not a JSON array.
+     */
+    String next() throws IOException
+    {
+        if (!started)
+        {
+            skipToArray();
+            started = true;
+        }
+
+        if (finished)
+        {
+            return null;
+        }
+
+        StringBuilder chunk = new StringBuilder(chunkSize + 1024).append('[');
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+
+        while (true)
+        {
+            int character = read();
+
+            if (character < 0)
+            {
+                throw new IOException("Unexpected end of the JSON array");
+            }
+
+            char c = (char) character;
+
+            if (inString)
+            {
+                if (escaped)
+                {
+                    escaped = false;
+                }
+                else if (c == '\\')
+                {
+                    escaped = true;
+                }
+                else if (c == '"')
+                {
+                    inString = false;
+                }
+            }
+            else if (c == '"')
+            {
+                inString = true;
+            }
+            else if (c == '[' || c == '{')
+            {
+                ++depth;
+            }
+            else if (c == ']' || c == '}')
+            {
+                if (depth == 0)
+                {
+                    finished = true;
+                    return chunk.append(']').toString();
+                }
+
+                --depth;
+            }
+            else if (c == ',' && depth == 0 && chunk.length() >= chunkSize)
+            {
+                return chunk.append(']').toString();
+            }
+
+            chunk.append(c);
+        }
+    }
+
+    private void skipToArray() throws IOException
+    {
+        int character;
+
+        do
+        {
+            character = read();
+        }
+        while (character >= 0 && Character.isWhitespace(character));
+
+        if (character != '[')
+        {
+            throw new IOException("Expected a JSON array of words");
+        }
+    }
+
+    private int read() throws IOException
+    {
+        if (position == limit)
+        {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+
+            if (limit <= 0)
+            {
+                limit = 0;
+                return -1;
+            }
+        }
+
+        return buffer[position++];
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.text.Normalizer;
+
+import tech.sirwellington.alchemy.annotations.access.NonInstantiable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Reduces a string to the key used by the search indexes, so that spellings of the same Latin word
+ * match each other. Keys are lower-cased, stripped of macrons and other diacritics, and fold
+ * {@code j} into {@code i} and {@code v} into {@code u}. The ligatures for {@code ae} and {@code oe}
+ * are spelled out.
+ * <p>
+ * For example, both "I&#x16B;lius" and "julius" become "iulius".
+ *
+ * @author SirWellington
+ */
+@NonInstantiable
+final class LatinNormalizer
+{
+
+    private LatinNormalizer()
+    {
+    }
+
+    /**
+     * @return The search key for {@code string}. Strings that are already keys are returned as is.
+     */
+    static String normalize(String string)
+    {
+        checkThat(string).is(notNull());
+
+        if (isNormalized(string))
+        {
+            return string;
+        }
+
+        String decomposed = Normalizer.normalize(string, Normalizer.Form.NFD);
+        StringBuilder key = new StringBuilder(decomposed.length());
+
+        for (int i = 0; i < decomposed.length(); ++i)
+        {
+            char character = decomposed.charAt(i);
+
+            if (isMark(character))
+            {
+                continue;
+            }
+
+            switch (Character.toLowerCase(character))
+            {
+                case 'j':
+                    key.append('i');
+                    break;
+                case 'v':
+                    key.append('u');
+                    break;
+                case '\u00e6':
+                    key.append("ae");
+                    break;
+                case '\u0153':
+                    key.append("oe");
+                    break;
+                default:
+                    key.append(Character.toLowerCase(character));
+            }
+        }
+
+        return key.toString();
+    }
+
+    private static boolean isNormalized(String string)
+    {
+        for (int i = 0; i < string.length(); ++i)
+        {
+            char character = string.charAt(i);
+
+            if (character >= 0x80 || (character >= 'A' && character <= 'Z') || character == 'j' || character == 'v')
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isMark(char character)
+    {
+        int type = Character.getType(character);
+
+        return type == Character.NON_SPACING_MARK ||
+               type == Character.COMBINING_SPACING_MARK ||
+               type == Character.ENCLOSING_MARK;
+    }
+
+}
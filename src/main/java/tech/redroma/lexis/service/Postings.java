@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.Arrays;
+
+import tech.sirwellington.alchemy.annotations.access.NonInstantiable;
+
+/**
+ * Operations on posting lists, which are sorted arrays of distinct word ids.
+ * A word id is the index of a word in {@link Words#WORDS}.
+ *
+ * @author SirWellington
+ */
+@NonInstantiable
+final class Postings
+{
+
+    static final int[] EMPTY = new int[0];
+
+    private Postings()
+    {
+    }
+
+    /**
+     * Sorts the first {@code length} ids and removes duplicates, producing a posting list.
+     */
+    static int[] sortedDistinct(int[] ids, int length)
+    {
+        if (length == 0)
+        {
+            return EMPTY;
+        }
+
+        int[] result = Arrays.copyOf(ids, length);
+        Arrays.sort(result);
+
+        int size = 1;
+        for (int i = 1; i < result.length; ++i)
+        {
+            if (result[i] != result[size - 1])
+            {
+                result[size++] = result[i];
+            }
+        }
+
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * @return The ids present in both posting lists.
+     */
+    static int[] intersect(int[] first, int[] second)
+    {
+        if (first.length > second.length)
+        {
+            return intersect(second, first);
+        }
+
+        int[] result = new int[first.length];
+        int size = 0;
+
+        if (first.length * 8 < second.length)
+        {
+            //Probe the longer list when it dwarfs the shorter one
+            int from = 0;
+            for (int id : first)
+            {
+                int position = Arrays.binarySearch(second, from, second.length, id);
+                if (position >= 0)
+                {
+                    result[size++] = id;
+                    from = position + 1;
+                }
+                else
+                {
+                    from = -position - 1;
+                }
+            }
+        }
+        else
+        {
+            int i = 0;
+            int j = 0;
+            while (i < first.length && j < second.length)
+            {
+                if (first[i] < second[j])
+                {
+                    ++i;
+                }
+                else if (first[i] > second[j])
+                {
+                    ++j;
+                }
+                else
+                {
+                    result[size++] = first[i];
+                    ++i;
+                    ++j;
+                }
+            }
+        }
+
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * A growable array of ids, used to collect postings without boxing.
+     */
+    static final class Builder
+    {
+
+        private int[] ids;
+        private int size;
+
+        Builder()
+        {
+            this(16);
+        }
+
+        Builder(int capacity)
+        {
+            this.ids = new int[Math.max(capacity, 1)];
+        }
+
+        void add(int id)
+        {
+            if (size == ids.length)
+            {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+
+            ids[size++] = id;
+        }
+
+        int size()
+        {
+            return size;
+        }
+
+        /**
+         * @return The collected ids as a posting list.
+         */
+        int[] build()
+        {
+            return sortedDistinct(ids, size);
+        }
+    }
+
+}
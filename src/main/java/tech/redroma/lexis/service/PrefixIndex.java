@@ -0,0 +1,320 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.lexis.service.words.PackedStrings;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Holds the key of every form of every word in sorted order, so that all the words starting with a prefix
+ * can be found with a binary search followed by a walk over the matching range.
+ * <p>
+ * The index also suggests the best forms starting with a prefix, for autocompletion. The suggestions for
+ * prefixes of up to {@link #PRECOMPUTED_PREFIX_LENGTH} characters, along with the ids of the words starting
+ * with them, are worked out ahead of time, since their ranges span most of the corpus. A page of the words
+ * starting with a short prefix is then read straight from its ids, without walking the range.
+ *
+ * @author SirWellington
+ */
+final class PrefixIndex
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(PrefixIndex.class);
+
+    static final int PRECOMPUTED_PREFIX_LENGTH = 3;
+
+    static final int MAX_SUGGESTIONS = 10;
+
+    private static final int FORM_POSITION_BITS = 6;
+    private static final int MAX_FORM_POSITION = (1 << FORM_POSITION_BITS) - 1;
+
+    private final String[] forms;
+    /** The forms to suggest, read by the word id and form position of each sorted key. */
+    private final PackedStrings displayForms;
+    private final int[] wordIds;
+    private final int[] formPositions;
+    private final Ranking ranking;
+    private final Map<String, Suggestions> precomputed = new HashMap<>();
+    private final Map<String, int[]> precomputedWords = new HashMap<>();
+
+    private PrefixIndex(String[] forms, PackedStrings displayForms, int[] wordIds, int[] formPositions, Ranking ranking)
+    {
+        this.forms = forms;
+        this.displayForms = displayForms;
+        this.wordIds = wordIds;
+        this.formPositions = formPositions;
+        this.ranking = ranking;
+    }
+
+    /**
+     * Creates an index that suggests the normalized keys themselves, in alphabetical order.
+     *
+     * @param formKeys The normalized keys of the forms of each word, indexed by word id.
+     */
+    static PrefixIndex of(String[][] formKeys)
+    {
+        return of(formKeys, PackedStrings.of(formKeys), null);
+    }
+
+    /**
+     * @param formKeys     The normalized keys of the forms of each word, indexed by word id.
+     * @param displayForms The forms to suggest for each of the keys, in the same layout as {@code formKeys}.
+     *                     They are only read when suggesting, so no copy of them is kept.
+     * @param ranking      Orders the suggestions by the words they belong to, or null to order them alphabetically.
+     */
+    static PrefixIndex of(String[][] formKeys, PackedStrings displayForms, Ranking ranking)
+    {
+        checkThat(formKeys, displayForms).are(notNull());
+
+        long begin = System.currentTimeMillis();
+
+        Entry[] entries = new Entry[countForms(formKeys)];
+        int size = 0;
+
+        for (int id = 0; id < formKeys.length; ++id)
+        {
+            for (int i = 0; i < formKeys[id].length; ++i)
+            {
+                entries[size++] = new Entry(formKeys[id][i], id, i);
+            }
+        }
+
+        Arrays.sort(entries);
+
+        String[] forms = new String[size];
+        int[] wordIds = new int[size];
+        int[] formPositions = new int[size];
+
+        for (int i = 0; i < size; ++i)
+        {
+            forms[i] = entries[i].form;
+            wordIds[i] = entries[i].wordId;
+            formPositions[i] = entries[i].formPosition;
+        }
+
+        PrefixIndex index = new PrefixIndex(forms, displayForms, wordIds, formPositions, ranking);
+        index.precompute();
+
+        long latency = System.currentTimeMillis() - begin;
+        LOG.info("Indexed {} forms by prefix in {}ms, with suggestions and {} word ids for {} short prefixes",
+                 size, latency, index.precomputedWordCount(), index.precomputed.size());
+
+        return index;
+    }
+
+    private void precompute()
+    {
+        Set<String> prefixes = new HashSet<>();
+
+        for (String form : forms)
+        {
+            for (int length = 1; length <= Math.min(PRECOMPUTED_PREFIX_LENGTH, form.length()); ++length)
+            {
+                prefixes.add(form.substring(0, length));
+            }
+        }
+
+        for (String prefix : prefixes)
+        {
+            precomputed.put(prefix, computeSuggestions(prefix, MAX_SUGGESTIONS));
+            precomputedWords.put(prefix, collectWordsStartingWith(prefix));
+        }
+    }
+
+    private long precomputedWordCount()
+    {
+        return precomputedWords.values().stream().mapToLong(words -> words.length).sum();
+    }
+
+    private static int countForms(String[][] formKeys)
+    {
+        int count = 0;
+
+        for (String[] keys : formKeys)
+        {
+            count += keys.length;
+        }
+
+        return count;
+    }
+
+    /**
+     * @return The ids of all the words that have a form starting with {@code prefix}, in ascending order.
+     *         The prefix is normalized first. The array may be shared, and must not be modified.
+     */
+    int[] wordsStartingWith(String prefix)
+    {
+        checkThat(prefix).is(notNull());
+
+        String key = LatinNormalizer.normalize(prefix);
+        int[] words = precomputedWords.get(key);
+
+        return words != null ? words : collectWordsStartingWith(key);
+    }
+
+    private int[] collectWordsStartingWith(String prefix)
+    {
+        Postings.Builder matches = new Postings.Builder();
+
+        for (int i = lowerBound(prefix); i < forms.length && forms[i].startsWith(prefix); ++i)
+        {
+            matches.add(wordIds[i]);
+        }
+
+        return matches.build();
+    }
+
+    /**
+     * @return Up to {@code limit} distinct forms starting with {@code prefix}, best first, along with the
+     *         number of words that have a form starting with it. The prefix is normalized first.
+     */
+    Suggestions suggestionsFor(String prefix, int limit)
+    {
+        checkThat(prefix).is(notNull());
+
+        String key = LatinNormalizer.normalize(prefix);
+        Suggestions suggestions = precomputed.get(key);
+
+        if (suggestions != null && limit <= MAX_SUGGESTIONS)
+        {
+            return suggestions.limitedTo(limit);
+        }
+
+        return computeSuggestions(key, limit);
+    }
+
+    private Suggestions computeSuggestions(String key, int limit)
+    {
+        Postings.Builder matches = new Postings.Builder();
+        Map<String, Long> bestScores = new HashMap<>();
+
+        for (int i = lowerBound(key); i < forms.length && forms[i].startsWith(key); ++i)
+        {
+            matches.add(wordIds[i]);
+
+            //Among the forms of one word, the earlier principal parts are suggested first
+            long score = ranking != null ? ranking.scoreOf(wordIds[i]) : i;
+            score = score << FORM_POSITION_BITS | Math.min(formPositions[i], MAX_FORM_POSITION);
+            bestScores.merge(displayForms.get(wordIds[i], formPositions[i]), score, Math::min);
+        }
+
+        List<Map.Entry<String, Long>> candidates = new ArrayList<>(bestScores.entrySet());
+        candidates.sort(Map.Entry.<String, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+
+        List<String> best = new ArrayList<>(Math.min(limit, candidates.size()));
+
+        for (int i = 0; i < candidates.size() && i < limit; ++i)
+        {
+            best.add(candidates.get(i).getKey());
+        }
+
+        return new Suggestions(matches.build().length, best);
+    }
+
+    /**
+     * @return The position of the first form that is not less than {@code key}.
+     */
+    private int lowerBound(String key)
+    {
+        int low = 0;
+        int high = forms.length;
+
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (forms[middle].compareTo(key) < 0)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    int size()
+    {
+        return forms.length;
+    }
+
+    /**
+     * The forms suggested for a prefix.
+     */
+    static final class Suggestions
+    {
+
+        private final int count;
+        private final List<String> forms;
+
+        Suggestions(int count, List<String> forms)
+        {
+            this.count = count;
+            this.forms = Collections.unmodifiableList(forms);
+        }
+
+        /**
+         * @return The number of words that have a form starting with the prefix.
+         */
+        int count()
+        {
+            return count;
+        }
+
+        List<String> forms()
+        {
+            return forms;
+        }
+
+        Suggestions limitedTo(int limit)
+        {
+            return limit >= forms.size() ? this : new Suggestions(count, forms.subList(0, Math.max(0, limit)));
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry>
+    {
+
+        private final String form;
+        private final int wordId;
+        private final int formPosition;
+
+        Entry(String form, int wordId, int formPosition)
+        {
+            this.form = form;
+            this.wordId = wordId;
+            this.formPosition = formPosition;
+        }
+
+        @Override
+        public int compareTo(Entry other)
+        {
+            int comparison = form.compareTo(other.form);
+            return comparison != 0 ? comparison : Integer.compare(wordId, other.wordId);
+        }
+    }
+
+}
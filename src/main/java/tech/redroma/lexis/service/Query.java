@@ -0,0 +1,447 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.*;
+import java.util.function.Function;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import sir.wellington.alchemy.collections.lists.Lists;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * A boolean query over the words, evaluated into a bitmap of the matching word ids.
+ * <p>
+ * Queries are read from JSON by a {@link Parser}. Each node is an object with a single key:
+ * <pre>
+ * {"and": [ ... ]}               {"or": [ ... ]}               {"not": { ... }}
+ * {"startsWith": "am"}           {"contains": "ama"}           {"definitionContains": "love"}
+ * {"frequency": "A,B"}           {"wordType": "Verb"}          ... and any other {@link Facet}
+ * </pre>
+ * The children of an {@code and} are evaluated from the cheapest to the most expensive, and each child
+ * is only asked about the words that have survived the children before it. A search that is left with
+ * fewer words than its index would check looks at just those words, and evaluation stops as soon as
+ * the intersection is empty. Negated children are subtracted last.
+ * <p>
+ * Unlike a single search, a query cannot return what it found before its {@link Deadline} passed:
+ * a negated child cut short would let through words that should have been excluded. So a query that
+ * runs out of time stops and is {@linkplain SearchRejectedException rejected} instead.
+ *
+ * @author SirWellington
+ */
+abstract class Query
+{
+
+    /**
+     * @return The ids of the matching words. The bitmap belongs to the caller.
+     */
+    final BitSet matches()
+    {
+        return matches(null, Deadline.NONE);
+    }
+
+    /**
+     * @return The ids of the matching words. The bitmap belongs to the caller.
+     *
+     * @throws SearchRejectedException If the deadline passes before the query is done.
+     */
+    final BitSet matches(Deadline deadline)
+    {
+        return matches(null, deadline);
+    }
+
+    /**
+     * @param candidates The only words that need to be considered, or null to consider every word.
+     *                   It is not modified.
+     *
+     * @return The ids of the matching words among the candidates. The bitmap belongs to the caller.
+     *
+     * @throws SearchRejectedException If the deadline passes before the query is done.
+     */
+    abstract BitSet matches(BitSet candidates, Deadline deadline);
+
+    /**
+     * @return A rough, relative cost of evaluating this query.
+     */
+    abstract int cost();
+
+    private static final class And extends Query
+    {
+
+        private final int wordCount;
+        private final List<Query> included = Lists.create();
+        private final List<Query> excluded = Lists.create();
+
+        And(int wordCount, List<Query> children)
+        {
+            this.wordCount = wordCount;
+
+            for (Query child : children)
+            {
+                if (child instanceof Not)
+                {
+                    excluded.add(((Not) child).child);
+                }
+                else
+                {
+                    included.add(child);
+                }
+            }
+
+            included.sort(Comparator.comparingInt(Query::cost));
+            excluded.sort(Comparator.comparingInt(Query::cost));
+        }
+
+        @Override
+        BitSet matches(BitSet candidates, Deadline deadline)
+        {
+            BitSet result;
+
+            if (included.isEmpty())
+            {
+                result = allOf(candidates, wordCount);
+            }
+            else
+            {
+                result = included.get(0).matches(candidates, deadline);
+
+                for (int i = 1; i < included.size() && !result.isEmpty(); ++i)
+                {
+                    result = included.get(i).matches(result, deadline);
+                }
+            }
+
+            for (int i = 0; i < excluded.size() && !result.isEmpty(); ++i)
+            {
+                result.andNot(excluded.get(i).matches(result, deadline));
+            }
+
+            return result;
+        }
+
+        @Override
+        int cost()
+        {
+            return costOf(included) + costOf(excluded);
+        }
+    }
+
+    private static final class Or extends Query
+    {
+
+        private final List<Query> children;
+
+        Or(List<Query> children)
+        {
+            this.children = children;
+        }
+
+        @Override
+        BitSet matches(BitSet candidates, Deadline deadline)
+        {
+            BitSet result = new BitSet();
+
+            for (Query child : children)
+            {
+                result.or(child.matches(candidates, deadline));
+            }
+
+            return result;
+        }
+
+        @Override
+        int cost()
+        {
+            return costOf(children);
+        }
+    }
+
+    private static final class Not extends Query
+    {
+
+        private final int wordCount;
+        private final Query child;
+
+        Not(int wordCount, Query child)
+        {
+            this.wordCount = wordCount;
+            this.child = child;
+        }
+
+        @Override
+        BitSet matches(BitSet candidates, Deadline deadline)
+        {
+            BitSet result = allOf(candidates, wordCount);
+            result.andNot(child.matches(candidates, deadline));
+
+            return result;
+        }
+
+        @Override
+        int cost()
+        {
+            return child.cost();
+        }
+    }
+
+    private static final class Search extends Query
+    {
+
+        private final int cost;
+        private final Function<String, SearchPlan> planner;
+        private final String term;
+
+        Search(int cost, Function<String, SearchPlan> planner, String term)
+        {
+            this.cost = cost;
+            this.planner = planner;
+            this.term = term;
+        }
+
+        @Override
+        BitSet matches(BitSet candidates, Deadline deadline)
+        {
+            SearchPlan plan = planner.apply(term);
+            BitSet result;
+
+            if (candidates != null && candidates.cardinality() < plan.candidateCount())
+            {
+                result = plan.matchesAmong(candidates, deadline);
+            }
+            else
+            {
+                //The plan may check its candidates in parallel, and a BitSet cannot be set from several threads
+                result = new BitSet();
+                for (int id : plan.stream(deadline).toArray())
+                {
+                    result.set(id);
+                }
+
+                if (candidates != null)
+                {
+                    result.and(candidates);
+                }
+            }
+
+            if (deadline.wasMissed())
+            {
+                throw new SearchRejectedException("The query did not finish in time");
+            }
+
+            return result;
+        }
+
+        @Override
+        int cost()
+        {
+            return cost;
+        }
+    }
+
+    private static final class FacetValues extends Query
+    {
+
+        private final Facet<?> facet;
+        private final String values;
+
+        FacetValues(Facet<?> facet, String values)
+        {
+            this.facet = facet;
+            this.values = values;
+        }
+
+        @Override
+        BitSet matches(BitSet candidates, Deadline deadline)
+        {
+            BitSet result = facet.wordsWithAny(values);
+
+            if (candidates != null)
+            {
+                result.and(candidates);
+            }
+
+            return result;
+        }
+
+        @Override
+        int cost()
+        {
+            return 1;
+        }
+    }
+
+    /**
+     * @return A new bitmap of the candidates, or of every word if there are none.
+     */
+    private static BitSet allOf(BitSet candidates, int wordCount)
+    {
+        if (candidates != null)
+        {
+            return (BitSet) candidates.clone();
+        }
+
+        BitSet all = new BitSet(wordCount);
+        all.set(0, wordCount);
+
+        return all;
+    }
+
+    private static int costOf(List<Query> queries)
+    {
+        return queries.stream().mapToInt(Query::cost).sum();
+    }
+
+    /**
+     * Reads queries from JSON, binding their predicates to the indexes of a corpus.
+     */
+    static final class Parser
+    {
+
+        /**
+         * Caps the number of predicates in one query, since each may cost a full search.
+         */
+        static final int MAX_PREDICATES = 32;
+
+        /**
+         * Caps how deeply {@code and}, {@code or} and {@code not} may be nested, since they do not count
+         * as predicates and are evaluated recursively.
+         */
+        static final int MAX_DEPTH = 16;
+
+        private final int wordCount;
+        private final Map<String, Search> searches = new HashMap<>();
+        private final Map<String, Facet<?>> facets = new HashMap<>();
+
+        /**
+         * @param wordCount   The number of words in the corpus.
+         * @param prefixes    Answers {@code startsWith}.
+         * @param containing  Answers {@code contains}.
+         * @param definitions Answers {@code definitionContains}.
+         * @param facets      Answer any key named by their {@linkplain Facet#parameter() parameter}.
+         */
+        Parser(int wordCount,
+               PrefixIndex prefixes,
+               SubstringIndex containing,
+               DefinitionIndex definitions,
+               List<? extends Facet<?>> facets)
+        {
+            checkThat(prefixes, containing, definitions, facets).are(notNull());
+
+            this.wordCount = wordCount;
+
+            searches.put("startsWith", new Search(2, term -> SearchPlan.exact(prefixes.wordsStartingWith(term)), null));
+            searches.put("contains", new Search(3, term -> containing.planFor(term, true), null));
+            searches.put("definitionContains", new Search(4, term -> definitions.planFor(term, true), null));
+
+            for (Facet<?> facet : facets)
+            {
+                this.facets.put(facet.parameter(), facet);
+            }
+        }
+
+        /**
+         * @throws IllegalArgumentException If the JSON is not a valid query.
+         */
+        Query parse(JsonElement json) throws IllegalArgumentException
+        {
+            checkThat(json).is(notNull());
+
+            int[] predicates = { 0 };
+            return parse(json, predicates, 1);
+        }
+
+        private Query parse(JsonElement json, int[] predicates, int depth)
+        {
+            if (depth > MAX_DEPTH)
+            {
+                throw new IllegalArgumentException("A query may not be nested more than " + MAX_DEPTH + " levels deep");
+            }
+
+            if (json == null || !json.isJsonObject() || json.getAsJsonObject().size() != 1)
+            {
+                throw new IllegalArgumentException("Each query must be an object with exactly one key: " + json);
+            }
+
+            Map.Entry<String, JsonElement> node = json.getAsJsonObject().entrySet().iterator().next();
+            String key = node.getKey();
+            JsonElement value = node.getValue();
+
+            switch (key)
+            {
+                case "and": return new And(wordCount, parseAll(key, value, predicates, depth + 1));
+                case "or": return new Or(parseAll(key, value, predicates, depth + 1));
+                case "not": return new Not(wordCount, parse(value, predicates, depth + 1));
+            }
+
+            if (++predicates[0] > MAX_PREDICATES)
+            {
+                throw new IllegalArgumentException("A query may not have more than " + MAX_PREDICATES + " predicates");
+            }
+
+            String term = stringOf(key, value);
+
+            Search search = searches.get(key);
+            if (search != null)
+            {
+                return new Search(search.cost, search.planner, term);
+            }
+
+            Facet<?> facet = facets.get(key);
+            if (facet != null)
+            {
+                //Fail on unknown values now, rather than during evaluation
+                facet.wordsWithAny(term);
+                return new FacetValues(facet, term);
+            }
+
+            throw new IllegalArgumentException("Unknown query: '" + key + "'");
+        }
+
+        private List<Query> parseAll(String key, JsonElement value, int[] predicates, int depth)
+        {
+            if (value == null || !value.isJsonArray() || value.getAsJsonArray().size() == 0)
+            {
+                throw new IllegalArgumentException("'" + key + "' expects a non-empty array of queries");
+            }
+
+            JsonArray array = value.getAsJsonArray();
+            List<Query> children = new ArrayList<>(array.size());
+
+            for (JsonElement element : array)
+            {
+                children.add(parse(element, predicates, depth));
+            }
+
+            return children;
+        }
+
+        private static String stringOf(String key, JsonElement value)
+        {
+            if (value == null || !value.isJsonPrimitive() || !value.getAsJsonPrimitive().isString() ||
+                value.getAsString().isEmpty())
+            {
+                throw new IllegalArgumentException("'" + key + "' expects a non-empty string");
+            }
+
+            return value.getAsString();
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+import tech.redroma.lexis.service.words.DictionaryCodes.Frequency;
+import tech.redroma.lexis.service.words.PackedStrings;
+import tech.redroma.lexis.service.words.SupplementalInformation;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Orders words by a score computed once for every word, and selects the best few of a list of
+ * matches with a bounded heap, so that only those words are ever rendered.
+ * <p>
+ * Each score packs the ranking signals above the word id, which makes every score distinct and
+ * breaks ties in favor of the lower id. Lower scores rank first.
+ *
+ * @author SirWellington
+ */
+final class Ranking
+{
+
+    private static final int MAX_FORM_LENGTH = 0xFFFF;
+
+    private final long[] scores;
+
+    private Ranking(long[] scores)
+    {
+        this.scores = scores;
+    }
+
+    /**
+     * Ranks the most frequent words first, from {@link Frequency#A} through {@link Frequency#N},
+     * followed by the words of unknown frequency. Among equally frequent words, those with the
+     * shortest form rank first.
+     *
+     * @param supplementalInformation Returns the supplemental information of a word, by word id.
+     * @param formKeys                The normalized keys of the forms of each word, grouped by word id.
+     */
+    static Ranking byFrequency(IntFunction<SupplementalInformation> supplementalInformation, PackedStrings formKeys)
+    {
+        checkThat(supplementalInformation, formKeys).are(notNull());
+
+        long[] scores = new long[formKeys.size()];
+
+        for (int id = 0; id < scores.length; ++id)
+        {
+            long frequency = frequencyRankOf(supplementalInformation.apply(id));
+            long length = shortestLengthOf(formKeys, id);
+
+            scores[id] = frequency << 48 | length << 32 | id;
+        }
+
+        return new Ranking(scores);
+    }
+
+    /**
+     * @return The score of the word. Lower scores rank first.
+     */
+    long scoreOf(int wordId)
+    {
+        return scores[wordId];
+    }
+
+    /**
+     * @return The best {@code limit} of {@code wordIds}, best first.
+     */
+    int[] top(int[] wordIds, int limit)
+    {
+        checkThat(wordIds).is(notNull());
+
+        int capacity = Math.max(0, Math.min(limit, wordIds.length));
+        long[] heap = new long[capacity];
+        int size = 0;
+
+        //A max-heap of the best scores seen so far; its root is the one to evict next
+        for (int id : wordIds)
+        {
+            long score = scores[id];
+
+            if (size < capacity)
+            {
+                heap[size] = score;
+                siftUp(heap, size++);
+            }
+            else if (capacity > 0 && score < heap[0])
+            {
+                heap[0] = score;
+                siftDown(heap, size);
+            }
+        }
+
+        Arrays.sort(heap, 0, size);
+
+        int[] top = new int[size];
+        for (int i = 0; i < size; ++i)
+        {
+            top[i] = (int) heap[i];
+        }
+
+        return top;
+    }
+
+    private static long frequencyRankOf(SupplementalInformation information)
+    {
+        Frequency frequency = information != null ? information.getFrequency() : null;
+
+        if (frequency == null || frequency == Frequency.X)
+        {
+            return Frequency.values().length;
+        }
+
+        return frequency.ordinal();
+    }
+
+    private static long shortestLengthOf(PackedStrings forms, int id)
+    {
+        int shortest = MAX_FORM_LENGTH;
+
+        for (int i = 0; i < forms.sizeOf(id); ++i)
+        {
+            shortest = Math.min(shortest, forms.lengthOf(id, i));
+        }
+
+        return shortest;
+    }
+
+    private static void siftUp(long[] heap, int position)
+    {
+        while (position > 0)
+        {
+            int parent = (position - 1) >>> 1;
+
+            if (heap[parent] >= heap[position])
+            {
+                return;
+            }
+
+            swap(heap, parent, position);
+            position = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size)
+    {
+        int position = 0;
+
+        while (true)
+        {
+            int largest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+
+            if (left < size && heap[left] > heap[largest])
+            {
+                largest = left;
+            }
+
+            if (right < size && heap[right] > heap[largest])
+            {
+                largest = right;
+            }
+
+            if (largest == position)
+            {
+                return;
+            }
+
+            swap(heap, largest, position);
+            position = largest;
+        }
+    }
+
+    private static void swap(long[] array, int first, int second)
+    {
+        long temporary = array[first];
+        array[first] = array[second];
+        array[second] = temporary;
+    }
+
+}
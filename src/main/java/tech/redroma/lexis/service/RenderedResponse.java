@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * A page of search results, rendered to the exact bytes of its response so that it can be
+ * {@linkplain ResponseCache cached} and sent again without another search.
+ *
+ * @author SirWellington
+ */
+final class RenderedResponse
+{
+
+    private final byte[] body;
+    private final int wordCount;
+    private final String nextCursor;
+    private final boolean partial;
+
+    private RenderedResponse(byte[] body, int wordCount, String nextCursor, boolean partial)
+    {
+        this.body = body;
+        this.wordCount = wordCount;
+        this.nextCursor = nextCursor;
+        this.partial = partial;
+    }
+
+    static RenderedResponse of(SearchOptions.Page page, RenderedWords words)
+    {
+        return of(page, words, false);
+    }
+
+    /**
+     * @param partial Whether the search stopped before checking every candidate, so that some matches may be missing.
+     */
+    static RenderedResponse of(SearchOptions.Page page, RenderedWords words, boolean partial)
+    {
+        checkThat(page, words).are(notNull());
+
+        int[] wordIds = page.wordIds();
+        return new RenderedResponse(words.toByteArray(wordIds), wordIds.length, page.nextCursor(), partial);
+    }
+
+    /**
+     * @return The JSON array of the words, in UTF-8.
+     */
+    byte[] body()
+    {
+        return body;
+    }
+
+    int wordCount()
+    {
+        return wordCount;
+    }
+
+    /**
+     * @return The cursor for the page after this one, or null if this is the last page.
+     */
+    String nextCursor()
+    {
+        return nextCursor;
+    }
+
+    /**
+     * @return True if some matches may be missing, because the search ran out of time.
+     */
+    boolean isPartial()
+    {
+        return partial;
+    }
+
+    long sizeInBytes()
+    {
+        return body.length;
+    }
+
+}
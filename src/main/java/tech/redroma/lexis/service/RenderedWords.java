@@ -0,0 +1,213 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.lexis.service.words.JSONConvertible;
+import tech.redroma.lexis.service.words.LexisWord;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * The JSON of every word, rendered to UTF-8 once at load time and kept in one shared buffer.
+ * <p>
+ * Each word is followed by a comma in the buffer, so a response with every word is written in a single
+ * call, and a response with some of the words is written one slice at a time. Either way, no JSON is
+ * built or encoded while serving a request, and the length of the response is known before it is written.
+ *
+ * @author SirWellington
+ */
+final class RenderedWords
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(RenderedWords.class);
+
+    private static final byte BEGIN_ARRAY = '[';
+    private static final byte END_ARRAY = ']';
+    private static final byte SEPARATOR = ',';
+
+    private final byte[] buffer;
+
+    /** Where the JSON of each word begins in the {@link #buffer}, followed by the end of the buffer. */
+    private final int[] starts;
+
+    private RenderedWords(byte[] buffer, int[] starts)
+    {
+        this.buffer = buffer;
+        this.starts = starts;
+    }
+
+    /**
+     * @param words The words to render, by word id.
+     */
+    static RenderedWords of(List<LexisWord> words)
+    {
+        checkThat(words).is(notNull());
+
+        long begin = System.currentTimeMillis();
+
+        byte[] buffer = new byte[1 << 16];
+        int[] starts = new int[words.size() + 1];
+        int size = 0;
+
+        for (int id = 0; id < words.size(); ++id)
+        {
+            byte[] json = JSONConvertible.GSON.toJson(words.get(id).asJSON()).getBytes(UTF_8);
+
+            if (size + json.length + 1 > buffer.length)
+            {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + json.length + 1));
+            }
+
+            starts[id] = size;
+            System.arraycopy(json, 0, buffer, size, json.length);
+            size += json.length;
+            buffer[size++] = SEPARATOR;
+        }
+
+        starts[words.size()] = size;
+
+        long latency = System.currentTimeMillis() - begin;
+        LOG.info("Rendered {} words to {} bytes of JSON in {}ms", words.size(), size, latency);
+
+        return new RenderedWords(Arrays.copyOf(buffer, size), starts);
+    }
+
+    /**
+     * @return The length in bytes of the JSON array of the words.
+     */
+    long lengthOf(int[] wordIds)
+    {
+        checkThat(wordIds).is(notNull());
+
+        long length = 2 + Math.max(0, wordIds.length - 1);
+
+        for (int id : wordIds)
+        {
+            length += lengthOf(id);
+        }
+
+        return length;
+    }
+
+    /**
+     * Writes the words as a JSON array.
+     */
+    void writeTo(OutputStream output, int[] wordIds) throws IOException
+    {
+        checkThat(output, wordIds).are(notNull());
+
+        output.write(BEGIN_ARRAY);
+
+        for (int i = 0; i < wordIds.length; ++i)
+        {
+            if (i > 0)
+            {
+                output.write(SEPARATOR);
+            }
+
+            int id = wordIds[i];
+            output.write(buffer, starts[id], lengthOf(id));
+        }
+
+        output.write(END_ARRAY);
+    }
+
+    /**
+     * @return The length in bytes of the JSON array of every word.
+     */
+    long lengthOfAll()
+    {
+        return 2 + Math.max(0, buffer.length - 1);
+    }
+
+    /**
+     * Writes every word as a JSON array.
+     */
+    void writeAllTo(OutputStream output) throws IOException
+    {
+        checkThat(output).is(notNull());
+
+        output.write(BEGIN_ARRAY);
+        //Leave off the comma after the last word
+        output.write(buffer, 0, Math.max(0, buffer.length - 1));
+        output.write(END_ARRAY);
+    }
+
+    /**
+     * @return The JSON array of every word, compressed with gzip.
+     */
+    byte[] gzipAll()
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(buffer.length / 4);
+
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes, 1 << 16))
+        {
+            writeAllTo(gzip);
+        }
+        catch (IOException ex)
+        {
+            //Writing to memory does not fail
+            throw new UncheckedIOException(ex);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return The words as a JSON array, in a buffer of their own.
+     */
+    byte[] toByteArray(int[] wordIds)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) lengthOf(wordIds));
+
+        try
+        {
+            writeTo(bytes, wordIds);
+        }
+        catch (IOException ex)
+        {
+            //Writing to memory does not fail
+            throw new UncheckedIOException(ex);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    long sizeInBytes()
+    {
+        return buffer.length + 4L * starts.length;
+    }
+
+    private int lengthOf(int id)
+    {
+        //Leave off the comma that follows each word
+        return starts[id + 1] - starts[id] - 1;
+    }
+
+}
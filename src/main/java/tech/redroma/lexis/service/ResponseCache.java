@@ -0,0 +1,507 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sir.wellington.alchemy.collections.lists.Lists;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * A bounded cache of rendered search responses, keyed by route, normalized term and search options.
+ * <p>
+ * Entries are kept in least-recently-used order, and the total size of their bodies never exceeds
+ * a fixed number of bytes. Making room for a new response means evicting the least recently used ones,
+ * which only happens if the new response has been asked for more often than each of them. Those counts
+ * come from a small frequency sketch that remembers keys long after their responses are evicted, so that
+ * a burst of one-off searches cannot flush out the popular ones. This is the admission policy of TinyLFU.
+ * <p>
+ * Identical searches that miss at the same time are coalesced: the first one runs, and the rest wait for
+ * and share its response, whether or not the cache ends up keeping it. Each waits no longer than its own
+ * {@link Deadline}, since the one running may have a later one, or none.
+ * <p>
+ * Partial responses, from searches that ran out of time, are never cached, nor shared with the searches
+ * waiting on them, whose deadlines may leave time to find everything. Those run their own search instead,
+ * as do the ones that run out of time waiting.
+ * <p>
+ * Lookups read a concurrent map and take no lock. Admission and eviction, along with the recency order and
+ * the sketch, are guarded by a single lock. A hit only records itself in the order and the sketch if it can
+ * take that lock without waiting, so under contention some hits go unrecorded and both are approximate.
+ * <p>
+ * Since the corpus is loaded once and never changes while the service runs, entries never expire.
+ *
+ * @author SirWellington
+ */
+final class ResponseCache
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(ResponseCache.class);
+
+    static final String MAX_BYTES_PROPERTY = "lexis.cache.maxBytes";
+
+    static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final long maxBytes;
+    private final FrequencySketch sketch;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** The cached responses, for lookups. */
+    private final ConcurrentMap<String, RenderedResponse> lookups = new ConcurrentHashMap<>();
+
+    /** The same responses, from the least to the most recently used. Guarded by the lock. */
+    private final LinkedHashMap<String, RenderedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentMap<String, CompletableFuture<RenderedResponse>> searches = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private long bytes;
+    private long evictions;
+    private long rejections;
+
+    ResponseCache(long maxBytes)
+    {
+        this.maxBytes = maxBytes;
+        this.sketch = new FrequencySketch();
+    }
+
+    /**
+     * @return A cache bounded by the {@code lexis.cache.maxBytes} system property, or by
+     *         {@link #DEFAULT_MAX_BYTES} if it is not set.
+     */
+    static ResponseCache fromSystemProperty()
+    {
+        long maxBytes = DEFAULT_MAX_BYTES;
+        String value = System.getProperty(MAX_BYTES_PROPERTY);
+
+        if (value != null)
+        {
+            try
+            {
+                maxBytes = Long.parseLong(value.trim());
+            }
+            catch (NumberFormatException ex)
+            {
+                LOG.warn("Invalid value for {}: '{}'. Using {} instead.", MAX_BYTES_PROPERTY, value, maxBytes);
+            }
+        }
+
+        if (maxBytes <= 0)
+        {
+            LOG.warn("{} must be positive. Using {} instead.", MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES);
+            maxBytes = DEFAULT_MAX_BYTES;
+        }
+
+        LOG.info("Caching up to {} bytes of search responses", maxBytes);
+        return new ResponseCache(maxBytes);
+    }
+
+    /**
+     * @return The key of the response to a search, ignoring differences in the term and
+     *         {@linkplain SearchOptions#key() options} that the search ignores.
+     */
+    static String keyOf(String route, String term, SearchOptions options)
+    {
+        checkThat(route, term, options).are(notNull());
+
+        return route + '\n' + LatinNormalizer.normalize(term) + '\n' + options.key();
+    }
+
+    /**
+     * @param deadline The deadline of the search, which bounds how long this waits for the same search
+     *                 already running.
+     *
+     * @return The cached response for the key, or the one produced by {@code search}, which is then
+     *         offered to the cache. If the same search is already running, this waits for its
+     *         response instead of running it again.
+     */
+    RenderedResponse get(String key, Deadline deadline, Supplier<RenderedResponse> search)
+    {
+        checkThat(key, deadline, search).are(notNull());
+
+        RenderedResponse response = getIfPresent(key);
+
+        if (response != null)
+        {
+            return response;
+        }
+
+        CompletableFuture<RenderedResponse> future = new CompletableFuture<>();
+        CompletableFuture<RenderedResponse> inFlight = searches.putIfAbsent(key, future);
+
+        if (inFlight != null)
+        {
+            coalesced.incrementAndGet();
+            response = await(inFlight, deadline);
+
+            if (response != null)
+            {
+                return response;
+            }
+
+            //Searches for itself, under its own deadline
+            response = search.get();
+            put(key, response);
+
+            return response;
+        }
+
+        try
+        {
+            response = search.get();
+
+            //Cache it before letting go of the key, so that no one arriving in between searches again
+            put(key, response);
+            future.complete(response);
+
+            return response;
+        }
+        catch (RuntimeException | Error ex)
+        {
+            future.completeExceptionally(ex);
+            throw ex;
+        }
+        finally
+        {
+            searches.remove(key, future);
+        }
+    }
+
+    /**
+     * @return The response of the search, or null if it is partial, or the search was rejected, or it did not
+     *         finish before the deadline, in which case the caller should search for itself.
+     */
+    private static RenderedResponse await(CompletableFuture<RenderedResponse> search, Deadline deadline)
+    {
+        try
+        {
+            RenderedResponse response = deadline == Deadline.NONE
+                                        ? search.get()
+                                        : search.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+
+            return response.isPartial() ? null : response;
+        }
+        catch (TimeoutException ex)
+        {
+            return null;
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new SearchRejectedException("Interrupted while waiting for the search");
+        }
+        catch (ExecutionException ex)
+        {
+            //Turned away under the deadline of the one running it, which need not apply to the caller
+            if (ex.getCause() instanceof SearchRejectedException)
+            {
+                return null;
+            }
+
+            //Fail the same way as the search did
+            if (ex.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            if (ex.getCause() instanceof Error)
+            {
+                throw (Error) ex.getCause();
+            }
+
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    RenderedResponse getIfPresent(String key)
+    {
+        RenderedResponse response = lookups.get(key);
+
+        if (response == null)
+        {
+            misses.increment();
+
+            //A search is about to run, which costs far more than waiting for the lock
+            lock.lock();
+            try
+            {
+                sketch.increment(key);
+            }
+            finally
+            {
+                lock.unlock();
+            }
+
+            return null;
+        }
+
+        hits.increment();
+
+        if (lock.tryLock())
+        {
+            try
+            {
+                sketch.increment(key);
+
+                //Moves the entry to the most recently used end
+                entries.get(key);
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        return response;
+    }
+
+    /**
+     * Stores the response, unless it is partial, or making room for it would evict a response
+     * that is asked for at least as often.
+     */
+    void put(String key, RenderedResponse response)
+    {
+        checkThat(key, response).are(notNull());
+
+        if (response.isPartial())
+        {
+            return;
+        }
+
+        lock.lock();
+        try
+        {
+            admit(key, response);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void admit(String key, RenderedResponse response)
+    {
+        long size = response.sizeInBytes();
+
+        RenderedResponse previous = entries.remove(key);
+        lookups.remove(key);
+        if (previous != null)
+        {
+            bytes -= previous.sizeInBytes();
+        }
+
+        if (size > maxBytes)
+        {
+            ++rejections;
+            return;
+        }
+
+        List<String> victims = Lists.create();
+        long freed = 0;
+        int frequency = sketch.frequency(key);
+
+        for (Iterator<Map.Entry<String, RenderedResponse>> iterator = entries.entrySet().iterator();
+             bytes - freed + size > maxBytes && iterator.hasNext();)
+        {
+            Map.Entry<String, RenderedResponse> victim = iterator.next();
+
+            if (sketch.frequency(victim.getKey()) >= frequency)
+            {
+                ++rejections;
+                return;
+            }
+
+            victims.add(victim.getKey());
+            freed += victim.getValue().sizeInBytes();
+        }
+
+        for (String victim : victims)
+        {
+            bytes -= entries.remove(victim).sizeInBytes();
+            lookups.remove(victim);
+            ++evictions;
+        }
+
+        entries.put(key, response);
+        lookups.put(key, response);
+        bytes += size;
+    }
+
+    Stats stats()
+    {
+        lock.lock();
+        try
+        {
+            return new Stats(hits.sum(), misses.sum(), coalesced.get(), evictions, rejections, entries.size(), bytes, maxBytes);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A snapshot of the cache's counters.
+     */
+    static final class Stats
+    {
+
+        final long hits;
+        final long misses;
+
+        /** The misses that waited for an identical search already running, rather than running their own. */
+        final long coalesced;
+        final long evictions;
+        final long rejections;
+        final int entries;
+        final long bytes;
+        final long maxBytes;
+
+        Stats(long hits,
+              long misses,
+              long coalesced,
+              long evictions,
+              long rejections,
+              int entries,
+              long bytes,
+              long maxBytes)
+        {
+            this.hits = hits;
+            this.misses = misses;
+            this.coalesced = coalesced;
+            this.evictions = evictions;
+            this.rejections = rejections;
+            this.entries = entries;
+            this.bytes = bytes;
+            this.maxBytes = maxBytes;
+        }
+
+        double hitRate()
+        {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        JsonObject asJSON()
+        {
+            JsonObject json = new JsonObject();
+            json.addProperty("hits", hits);
+            json.addProperty("misses", misses);
+            json.addProperty("hit_rate", hitRate());
+            json.addProperty("coalesced", coalesced);
+            json.addProperty("evictions", evictions);
+            json.addProperty("rejections", rejections);
+            json.addProperty("entries", entries);
+            json.addProperty("bytes", bytes);
+            json.addProperty("max_bytes", maxBytes);
+
+            return json;
+        }
+    }
+
+    /**
+     * A count-min sketch of how often each key has been asked for, in four bits per counter.
+     * All the counts are halved periodically, so that the sketch follows changes in popularity.
+     */
+    private static final class FrequencySketch
+    {
+
+        private static final int DEPTH = 4;
+        private static final int WIDTH = 1 << 14;
+        private static final int MAX_COUNT = 15;
+        private static final int SAMPLE_SIZE = 10 * WIDTH;
+        private static final int[] SEEDS = { 0x9E3779B1, 0x85EBCA77, 0xC2B2AE3D, 0x27D4EB2F };
+
+        private final byte[][] counters = new byte[DEPTH][WIDTH];
+        private int additions;
+
+        void increment(String key)
+        {
+            int hash = spread(key.hashCode());
+
+            for (int row = 0; row < DEPTH; ++row)
+            {
+                byte[] counter = counters[row];
+                int index = indexOf(hash, row);
+
+                if (counter[index] < MAX_COUNT)
+                {
+                    ++counter[index];
+                }
+            }
+
+            if (++additions >= SAMPLE_SIZE)
+            {
+                age();
+            }
+        }
+
+        int frequency(String key)
+        {
+            int hash = spread(key.hashCode());
+            int frequency = MAX_COUNT;
+
+            for (int row = 0; row < DEPTH; ++row)
+            {
+                frequency = Math.min(frequency, counters[row][indexOf(hash, row)]);
+            }
+
+            return frequency;
+        }
+
+        private void age()
+        {
+            for (byte[] row : counters)
+            {
+                for (int i = 0; i < row.length; ++i)
+                {
+                    row[i] >>= 1;
+                }
+            }
+
+            additions /= 2;
+        }
+
+        private static int indexOf(int hash, int row)
+        {
+            return (hash * SEEDS[row]) >>> (Integer.SIZE - 14);
+        }
+
+        private static int spread(int hash)
+        {
+            hash ^= hash >>> 16;
+            hash *= 0x45D9F3B;
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+}
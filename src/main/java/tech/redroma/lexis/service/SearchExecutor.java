@@ -0,0 +1,251 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Runs searches on a pool of threads of their own, rather than on the threads serving requests
+ * or on the JVM-wide common pool.
+ * <p>
+ * No more searches run at once than the pool has threads, and the rest wait their turn. Parallel streams
+ * started by a search also run on this pool, so one slow search cannot take over the threads that the
+ * rest of the process relies on.
+ * <p>
+ * The queue in front of the pool is bounded too: at most {@value #QUEUED_PER_THREAD} searches per thread
+ * may be running or waiting at once. A search that cannot get a place in time, or that has not finished
+ * shortly after its {@link Deadline}, is {@linkplain SearchRejectedException rejected}, so that callers
+ * under load are turned away instead of piling up behind one another.
+ *
+ * @author SirWellington
+ */
+final class SearchExecutor
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(SearchExecutor.class);
+
+    static final String PARALLELISM_PROPERTY = "lexis.search.parallelism";
+
+    static final int QUEUED_PER_THREAD = 4;
+
+    /** How long a search without a deadline waits for a place in the queue. */
+    static final long MAX_QUEUE_WAIT_MILLIS = 1_000;
+
+    /** How long past its deadline a search may take to stop and hand back its partial results. */
+    static final long GRACE_MILLIS = 100;
+
+    private final ForkJoinPool pool;
+    private final Semaphore places;
+
+    SearchExecutor(int parallelism)
+    {
+        this(parallelism, parallelism * QUEUED_PER_THREAD);
+    }
+
+    SearchExecutor(int parallelism, int maxSearches)
+    {
+        this.pool = new ForkJoinPool(parallelism, SearchExecutor::newThread, null, false);
+        this.places = new Semaphore(maxSearches);
+    }
+
+    /**
+     * @return An executor with as many threads as the {@code lexis.search.parallelism} system property
+     *         asks for, or one per processor if it is not set.
+     */
+    static SearchExecutor fromSystemProperty()
+    {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int parallelism = processors;
+        String value = System.getProperty(PARALLELISM_PROPERTY);
+
+        if (value != null)
+        {
+            try
+            {
+                parallelism = Integer.parseInt(value.trim());
+            }
+            catch (NumberFormatException ex)
+            {
+                LOG.warn("Invalid value for {}: '{}'. Using {} instead.", PARALLELISM_PROPERTY, value, processors);
+            }
+        }
+
+        if (parallelism <= 0)
+        {
+            LOG.warn("{} must be positive. Using {} instead.", PARALLELISM_PROPERTY, processors);
+            parallelism = processors;
+        }
+
+        LOG.info("Running searches on {} threads", parallelism);
+        return new SearchExecutor(parallelism);
+    }
+
+    /**
+     * Runs a search that has no deadline.
+     *
+     * @see #run(Supplier, Deadline)
+     */
+    <T> T run(Supplier<T> search)
+    {
+        return run(search, Deadline.NONE);
+    }
+
+    /**
+     * Runs the search on the pool, and waits for its result. Whatever the search throws is rethrown here.
+     *
+     * @throws SearchRejectedException If the queue stays full until the deadline, or the search has not
+     *                                 finished by the end of its grace period. A search without a deadline
+     *                                 waits at most {@value #MAX_QUEUE_WAIT_MILLIS}ms for a place in the queue,
+     *                                 and then as long as it takes.
+     */
+    <T> T run(Supplier<T> search, Deadline deadline)
+    {
+        checkThat(search, deadline).are(notNull());
+
+        if (ForkJoinTask.getPool() == pool)
+        {
+            return search.get();
+        }
+
+        long queueWait = deadline == Deadline.NONE ? MAX_QUEUE_WAIT_MILLIS : deadline.remainingMillis();
+
+        if (!acquirePlace(queueWait))
+        {
+            throw new SearchRejectedException("Too many searches are waiting to run");
+        }
+
+        //Claimed by the search when it starts, or by the caller when it gives up on a search that has not,
+        //so that whichever claims it gives the place back, and does so once
+        AtomicBoolean started = new AtomicBoolean();
+
+        ForkJoinTask<T> task;
+        try
+        {
+            task = pool.submit(() ->
+            {
+                if (!started.compareAndSet(false, true))
+                {
+                    return null;
+                }
+
+                try
+                {
+                    return search.get();
+                }
+                finally
+                {
+                    places.release();
+                }
+            });
+        }
+        catch (RuntimeException ex)
+        {
+            places.release();
+            throw ex;
+        }
+
+        if (deadline == Deadline.NONE)
+        {
+            return task.join();
+        }
+
+        return await(task, started, deadline.remainingMillis() + GRACE_MILLIS);
+    }
+
+    private boolean acquirePlace(long millis)
+    {
+        try
+        {
+            return places.tryAcquire(millis, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private <T> T await(ForkJoinTask<T> task, AtomicBoolean started, long millis)
+    {
+        try
+        {
+            return task.get(millis, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException ex)
+        {
+            abandon(task, started);
+            throw new SearchRejectedException("The search did not finish in time");
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            abandon(task, started);
+            throw new SearchRejectedException("Interrupted while waiting for the search");
+        }
+        catch (ExecutionException ex)
+        {
+            //Fail the same way as the search did
+            if (ex.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            if (ex.getCause() instanceof Error)
+            {
+                throw (Error) ex.getCause();
+            }
+
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Gives up on a search. One that is still queued never runs, and its place is given back here.
+     * One that has started keeps its place until it notices the deadline and stops.
+     */
+    private void abandon(ForkJoinTask<?> task, AtomicBoolean started)
+    {
+        task.cancel(false);
+
+        if (started.compareAndSet(false, true))
+        {
+            places.release();
+        }
+    }
+
+    private static ForkJoinWorkerThread newThread(ForkJoinPool pool)
+    {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("lexis-search-" + thread.getPoolIndex());
+        return thread;
+    }
+
+}
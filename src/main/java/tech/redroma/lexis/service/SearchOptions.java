@@ -0,0 +1,286 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import com.google.common.base.Strings;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * The query parameters that shape the results of a search: a {@link FacetFilter}, an optional
+ * {@link Ranking} named by {@code rank}, and an optional {@code limit} on the number of results.
+ * <p>
+ * Unranked results may be paged through with a {@code limit} and a {@link Cursor}. Pages are taken
+ * from matches in ascending order of id, and stop being read from them as soon as they are full.
+ *
+ * @author SirWellington
+ */
+final class SearchOptions
+{
+
+    static final String LIMIT = "limit";
+    static final String RANK = "rank";
+    static final String CURSOR = "cursor";
+
+    private final FacetFilter filter;
+    private final String rank;
+    private final Ranking ranking;
+    private final int limit;
+    private final int afterWordId;
+    private final String corpusVersion;
+
+    private SearchOptions(FacetFilter filter,
+                          String rank,
+                          Ranking ranking,
+                          int limit,
+                          int afterWordId,
+                          String corpusVersion)
+    {
+        this.filter = filter;
+        this.rank = rank;
+        this.ranking = ranking;
+        this.limit = limit;
+        this.afterWordId = afterWordId;
+        this.corpusVersion = corpusVersion;
+    }
+
+    /**
+     * @param parameters    Returns the value of a query parameter, or null if it is absent.
+     * @param facets        The facets that may be filtered on.
+     * @param rankings      The rankings that may be named by {@code rank}.
+     * @param corpusVersion The version of the corpus, which cursors are tied to.
+     *
+     * @throws IllegalArgumentException If a parameter is invalid.
+     */
+    static SearchOptions fromQuery(Function<String, String> parameters,
+                                   List<? extends Facet<?>> facets,
+                                   Map<String, Ranking> rankings,
+                                   String corpusVersion) throws IllegalArgumentException
+    {
+        checkThat(parameters, facets, rankings, corpusVersion).are(notNull());
+
+        FacetFilter filter = FacetFilter.fromQuery(parameters, facets);
+
+        Ranking ranking = null;
+        String rank = parameters.apply(RANK);
+
+        if (!Strings.isNullOrEmpty(rank))
+        {
+            ranking = rankings.get(rank);
+
+            if (ranking == null)
+            {
+                throw new IllegalArgumentException("Unknown value for " + RANK + ": '" + rank + "'");
+            }
+        }
+
+        int limit = Integer.MAX_VALUE;
+        String limitParameter = parameters.apply(LIMIT);
+
+        if (!Strings.isNullOrEmpty(limitParameter))
+        {
+            limit = parseLimit(limitParameter);
+        }
+
+        int afterWordId = -1;
+        String cursor = parameters.apply(CURSOR);
+
+        if (!Strings.isNullOrEmpty(cursor))
+        {
+            if (ranking != null)
+            {
+                throw new IllegalArgumentException("Ranked results cannot be paged with a " + CURSOR);
+            }
+
+            afterWordId = Cursor.decode(cursor, corpusVersion);
+        }
+
+        return new SearchOptions(filter, ranking != null ? rank : null, ranking, limit, afterWordId, corpusVersion);
+    }
+
+    private static int parseLimit(String parameter)
+    {
+        try
+        {
+            int limit = Integer.parseInt(parameter);
+
+            if (limit > 0)
+            {
+                return limit;
+            }
+        }
+        catch (NumberFormatException ex)
+        {
+        }
+
+        throw new IllegalArgumentException(LIMIT + " must be a positive number");
+    }
+
+    /**
+     * @return The options in a canonical form: the {@linkplain FacetFilter#key() filter}, then the ranking,
+     *         the limit and the word that the cursor points after. Requests whose options select the same page
+     *         give the same key, whatever the order of their parameters, and parameters that are not options,
+     *         such as a timeout, are left out.
+     */
+    String key()
+    {
+        return filter.key() + RANK + '=' + Strings.nullToEmpty(rank)
+               + '&' + LIMIT + '=' + limit
+               + '&' + CURSOR + '=' + afterWordId;
+    }
+
+    /**
+     * @return True if these options leave the results untouched.
+     */
+    boolean isEmpty()
+    {
+        return filter.isEmpty() && ranking == null && limit == Integer.MAX_VALUE && afterWordId < 0;
+    }
+
+    /**
+     * @return True if every match has to be read to apply these options, and false if the first few will do.
+     */
+    boolean readsAllMatches()
+    {
+        return ranking != null || limit == Integer.MAX_VALUE;
+    }
+
+    /**
+     * Filters, ranks, limits and pages the matches of a search.
+     *
+     * @param wordIds The matches, in ascending order.
+     */
+    Page apply(int[] wordIds)
+    {
+        checkThat(wordIds).is(notNull());
+
+        if (ranking != null)
+        {
+            return new Page(ranking.top(filter.apply(wordIds), limit), null);
+        }
+
+        int start = Arrays.binarySearch(wordIds, afterWordId + 1);
+        start = start >= 0 ? start : -start - 1;
+
+        return apply(Arrays.stream(wordIds, start, wordIds.length));
+    }
+
+    /**
+     * Like {@link #apply(int[])}, over matches that are worked out lazily. Only as many are read
+     * as it takes to fill the page.
+     *
+     * @param wordIds The matches, in ascending order.
+     */
+    Page apply(IntStream wordIds)
+    {
+        checkThat(wordIds).is(notNull());
+
+        if (ranking != null)
+        {
+            return apply(wordIds.toArray());
+        }
+
+        return page(wordIds
+            .filter(id -> id > afterWordId)
+            .filter(filter::matches));
+    }
+
+    /**
+     * Like {@link #apply(int[])}, over a bitmap of matches, such as those of a {@link Query}. The filter and
+     * the cursor are applied to the whole bitmap at once, which is modified.
+     */
+    Page apply(BitSet wordIds)
+    {
+        checkThat(wordIds).is(notNull());
+
+        filter.apply(wordIds);
+
+        if (ranking != null)
+        {
+            return new Page(ranking.top(wordIds.stream().toArray(), limit), null);
+        }
+
+        wordIds.clear(0, afterWordId + 1);
+
+        return page(wordIds.stream());
+    }
+
+    /**
+     * @param wordIds The matches that pass the filter and come after the cursor, in ascending order.
+     */
+    private Page page(IntStream wordIds)
+    {
+        //Reading one match past the page tells whether there is another page
+        int[] matches = wordIds
+            .limit(limit == Integer.MAX_VALUE ? limit : limit + 1L)
+            .toArray();
+
+        if (matches.length <= limit)
+        {
+            return new Page(matches, null);
+        }
+
+        int[] page = Arrays.copyOf(matches, limit);
+        return new Page(page, Cursor.encode(corpusVersion, page[limit - 1]));
+    }
+
+    /**
+     * Like {@link #apply(int[])}, over every word below {@code wordCount}.
+     */
+    Page allWords(int wordCount)
+    {
+        return apply(IntStream.range(0, wordCount));
+    }
+
+    /**
+     * The selected matches of a search.
+     */
+    static final class Page
+    {
+
+        private final int[] wordIds;
+        private final String nextCursor;
+
+        Page(int[] wordIds, String nextCursor)
+        {
+            this.wordIds = wordIds;
+            this.nextCursor = nextCursor;
+        }
+
+        int[] wordIds()
+        {
+            return wordIds;
+        }
+
+        /**
+         * @return The cursor for the page after this one, or null if this is the last page.
+         */
+        String nextCursor()
+        {
+            return nextCursor;
+        }
+    }
+
+}
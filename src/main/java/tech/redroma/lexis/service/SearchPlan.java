@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * How a search checks its candidates, chosen from what an index knows about the term before any are checked.
+ * <p>
+ * Candidates come from the index's posting lists when the term is long enough to use them, and are
+ * checked one at a time, so that a caller reading only the first few matches stops early. Otherwise every
+ * word is a candidate. Fanning the checks out over threads only pays off when there are many candidates
+ * and every match will be read, so that is the only case in which the candidates are partitioned
+ * and checked in parallel.
+ *
+ * @author SirWellington
+ */
+final class SearchPlan
+{
+
+    /**
+     * The fewest candidates worth checking in parallel. Below this, splitting the work up costs more than it saves.
+     */
+    static final int PARALLEL_THRESHOLD = 8192;
+
+    enum Strategy
+    {
+        /** Check the candidates from the index, in order. */
+        INDEX_PROBE,
+
+        /** Check every word, in order. */
+        SEQUENTIAL_SCAN,
+
+        /** Check the candidates in partitions, in parallel. */
+        PARALLEL_SCAN
+    }
+
+    private final Strategy strategy;
+    private final int[] candidates;
+    private final int wordCount;
+    private final IntPredicate matches;
+    /** Whether the candidates are already the matches, so that streaming them needs no checks. */
+    private final boolean exact;
+
+    private SearchPlan(Strategy strategy, int[] candidates, int wordCount, IntPredicate matches, boolean exact)
+    {
+        this.strategy = strategy;
+        this.candidates = candidates;
+        this.wordCount = wordCount;
+        this.matches = matches;
+        this.exact = exact;
+    }
+
+    /**
+     * @param candidates The ids of the words that may match, in ascending order, or null if any word may match.
+     * @param wordCount  The number of words in the corpus.
+     * @param matches    Checks whether a word really matches. It must give the right answer for any word,
+     *                   not only the candidates.
+     * @param readsAll   Whether the caller will read every match, rather than stopping after the first few.
+     */
+    static SearchPlan choose(int[] candidates, int wordCount, IntPredicate matches, boolean readsAll)
+    {
+        checkThat(matches).is(notNull());
+
+        int candidateCount = candidates != null ? candidates.length : wordCount;
+        Strategy strategy;
+
+        if (readsAll && candidateCount >= PARALLEL_THRESHOLD)
+        {
+            strategy = Strategy.PARALLEL_SCAN;
+        }
+        else if (candidates != null)
+        {
+            strategy = Strategy.INDEX_PROBE;
+        }
+        else
+        {
+            strategy = Strategy.SEQUENTIAL_SCAN;
+        }
+
+        return new SearchPlan(strategy, candidates, wordCount, matches, false);
+    }
+
+    /**
+     * @return A plan for an index that has already found the exact matches, so there is nothing left to check.
+     */
+    static SearchPlan exact(int[] matches)
+    {
+        checkThat(matches).is(notNull());
+
+        return new SearchPlan(Strategy.INDEX_PROBE, matches, matches.length, id -> Arrays.binarySearch(matches, id) >= 0, true);
+    }
+
+    /**
+     * @return The matches, in ascending order. Once the deadline has passed, the remaining candidates are skipped.
+     */
+    IntStream stream(Deadline deadline)
+    {
+        checkThat(deadline).is(notNull());
+
+        IntStream ids = candidates != null ? Arrays.stream(candidates) : IntStream.range(0, wordCount);
+
+        if (strategy == Strategy.PARALLEL_SCAN)
+        {
+            ids = ids.parallel();
+        }
+
+        if (exact)
+        {
+            return ids;
+        }
+
+        return ids.filter(id -> !deadline.hasPassed() && matches.test(id));
+    }
+
+    /**
+     * Checks only the given words, rather than the candidates from the index. This is cheaper when
+     * an earlier part of a query has already narrowed the words down to fewer than the candidates.
+     *
+     * @return A new bitmap of the words in {@code among} that match. Once the deadline has passed,
+     *         the remaining words are skipped.
+     */
+    BitSet matchesAmong(BitSet among, Deadline deadline)
+    {
+        checkThat(among, deadline).are(notNull());
+
+        BitSet result = new BitSet();
+
+        for (int id = among.nextSetBit(0); id >= 0 && !deadline.hasPassed(); id = among.nextSetBit(id + 1))
+        {
+            if (matches.test(id))
+            {
+                result.set(id);
+            }
+        }
+
+        return result;
+    }
+
+    int candidateCount()
+    {
+        return candidates != null ? candidates.length : wordCount;
+    }
+
+    @Override
+    public String toString()
+    {
+        return strategy + " of " + candidateCount() + " candidates";
+    }
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+/**
+ * Thrown when the {@link SearchExecutor} turns a search away, because too many are already waiting
+ * to run, or because it did not finish in time. The client may try again later.
+ *
+ * @author SirWellington
+ */
+final class SearchRejectedException extends RuntimeException
+{
+
+    SearchRejectedException(String message)
+    {
+        super(message);
+    }
+
+}
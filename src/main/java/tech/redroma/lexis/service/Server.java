@@ -16,21 +16,26 @@
 
 package tech.redroma.lexis.service;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Random;
-import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import javax.servlet.http.HttpServletResponse;
 
 import com.google.common.base.Strings;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.*;
 import tech.aroma.client.Aroma;
 import tech.aroma.client.Priority;
+import tech.redroma.lexis.service.words.JSONConvertible;
 import tech.redroma.lexis.service.words.LexisWord;
 
-import static java.util.stream.Collectors.toList;
-
 /**
  * @author SirWellington
  */
@@ -41,6 +46,15 @@ public final class Server
     final static Aroma AROMA = Aroma.Factory.create("0355e009-f92a-494f-bc1c-25bfbe901c7f");
 
     private final static String APPLICATION_JSON = "application/json";
+    private final static String NEXT_CURSOR = "X-Next-Cursor";
+    private final static String PARTIAL_RESULTS = "X-Partial-Results";
+    private final static String TIMEOUT = "timeoutMs";
+
+    private final static int DEFAULT_MAX_EDITS = 1;
+    private final static int MAX_EDITS_LIMIT = 2;
+
+    private final static ResponseCache RESPONSES = ResponseCache.fromSystemProperty();
+    private final static SearchExecutor SEARCHES = SearchExecutor.fromSystemProperty();
 
     public static void main(String[] args)
     {
@@ -73,7 +87,14 @@ public final class Server
         Spark.get("/search/starting-with/:searchTerm", this::getAllWordsStartingWith);
         Spark.get("/search/containing/:searchTerm", this::getAllWordsContaining);
         Spark.get("/search/containing-in-definition/:searchTerm", this::getAllWordsContainingInDefinition);
+        Spark.get("/search/fuzzy/:searchTerm", this::getAllWordsSimilarTo);
         Spark.get("/search/any-word", this::getAnyWord);
+        Spark.get("/suggest/:prefix", this::getSuggestions);
+        Spark.post("/search", this::searchByQuery);
+        Spark.get("/lookup/inflected/:form", this::getLemmasOfInflectedForm);
+        Spark.get("/stats/cache", this::getCacheStats);
+
+        Spark.exception(SearchRejectedException.class, this::searchRejected);
     }
 
     Object getAllWords(Request request, Response response)
@@ -84,6 +105,13 @@ public final class Server
         response.status(200);
         response.type(APPLICATION_JSON);
 
+        SearchOptions options = parseOptions(request, response);
+
+        if (options == null)
+        {
+            return response;
+        }
+
         List<LexisWord> words = Words.WORDS;
 
         AROMA.begin().titled("Received Request")
@@ -91,9 +119,22 @@ public final class Server
              .withPriority(Priority.MEDIUM)
              .send();
 
-        List<JsonObject> allWords = words.stream()
-                                         .map(word -> word.asJSON())
-                                         .collect(toList());
+        try
+        {
+            if (options.isEmpty())
+            {
+                writeAllWords(request, response);
+            }
+            else
+            {
+                writeJSON(options.allWords(words.size()), response);
+            }
+        }
+        catch (IOException ex)
+        {
+            LOG.warn("Failed to write all words to IP [{}]", request.ip(), ex);
+            return "";
+        }
 
         long latency = System.currentTimeMillis() - begin;
         AROMA.begin().titled("Request Completed")
@@ -101,7 +142,8 @@ public final class Server
              .withPriority(Priority.MEDIUM)
              .send();
 
-        return allWords;
+        //The body has already been written
+        return "";
     }
 
     Object getAllWordsStartingWith(Request request, Response response)
@@ -118,32 +160,43 @@ public final class Server
             return missingSearchTerm(response);
         }
 
-        response.type(APPLICATION_JSON);
+        SearchOptions options = parseOptions(request, response);
 
-        LOG.info("Received request from [{}] to get all words starting with: {}", request.ip(), term);
+        if (options == null)
+        {
+            return response;
+        }
+
+        Deadline deadline = parseDeadline(request.queryParams(TIMEOUT));
 
-        Predicate<LexisWord> filter = (LexisWord word) ->
+        if (deadline == null)
         {
-            return word.getForms().stream().anyMatch((form) -> form.startsWith(term));
-        };
+            return badRequest(response, TIMEOUT + " must be a positive number");
+        }
+
+        response.type(APPLICATION_JSON);
+
+        LOG.info("Received request from [{}] to get all words starting with: {}", request.ip(), term);
 
         long start = System.currentTimeMillis();
 
-        List<JsonObject> matches = Words.WORDS.parallelStream()
-                                              .filter(filter)
-                                              .map(LexisWord::asJSON)
-                                              .collect(toList());
+        String key = ResponseCache.keyOf("starting-with", term, options);
+        RenderedResponse matches = RESPONSES.get(key, deadline, () -> SEARCHES.run(() ->
+        {
+            int[] candidates = Words.PREFIXES.wordsStartingWith(term);
+            return render(options.apply(candidates), deadline);
+        }, deadline));
 
         long latency = System.currentTimeMillis() - start;
 
-        LOG.info("Found {} words matching search term {}. Operation took {}ms", matches.size(), term, latency);
+        LOG.info("Found {} words matching search term {}. Operation took {}ms", matches.wordCount(), term, latency);
 
         AROMA.begin().titled("Request Complete")
              .withPriority(Priority.LOW)
-             .withBody("Found {} words starting with '{}' in {}ms for IP [{}]", matches.size(), term, latency, request.ip())
+             .withBody("Found {} words starting with '{}' in {}ms for IP [{}]", matches.wordCount(), term, latency, request.ip())
              .send();
 
-        return matches;
+        return respondWith(matches, request, response);
     }
 
     Object getAllWordsContaining(Request request, Response response)
@@ -155,6 +208,20 @@ public final class Server
             return missingSearchTerm(response);
         }
 
+        SearchOptions options = parseOptions(request, response);
+
+        if (options == null)
+        {
+            return response;
+        }
+
+        Deadline deadline = parseDeadline(request.queryParams(TIMEOUT));
+
+        if (deadline == null)
+        {
+            return badRequest(response, TIMEOUT + " must be a positive number");
+        }
+
         AROMA.begin().titled("Received Request")
              .withPriority(Priority.MEDIUM)
              .withBody("From [{}] to GET all words containing '{}'", request.ip(), term)
@@ -164,26 +231,23 @@ public final class Server
         response.status(200);
         response.type(APPLICATION_JSON);
 
-        Predicate<LexisWord> filter = (word) ->
-        {
-            return word.getForms().stream().anyMatch((form) -> form.contains(term));
-        };
-
         long begin = System.currentTimeMillis();
-        List<JsonObject> results = Words.WORDS.parallelStream()
-                                              .filter(filter)
-                                              .map(LexisWord::asJSON)
-                                              .collect(toList());
+        String key = ResponseCache.keyOf("containing", term, options);
+        RenderedResponse results = RESPONSES.get(key, deadline, () -> SEARCHES.run(() ->
+            search("words containing '" + term + "'",
+                   () -> Words.CONTAINING.planFor(term, options.readsAllMatches()),
+                   options,
+                   deadline), deadline));
         long latency = System.currentTimeMillis() - begin;
 
-        LOG.info("Found {} words containing '{}' in {}ms", results.size(), term, latency);
+        LOG.info("Found {} words containing '{}' in {}ms", results.wordCount(), term, latency);
 
         AROMA.begin().titled("Request Complete")
              .withPriority(Priority.LOW)
-             .withBody("Found {} words containing '{}' in {}ms for IP [{}]", results.size(), term, latency, request.ip())
+             .withBody("Found {} words containing '{}' in {}ms for IP [{}]", results.wordCount(), term, latency, request.ip())
              .send();
 
-        return results;
+        return respondWith(results, request, response);
     }
 
     Object getAllWordsContainingInDefinition(Request request, Response response)
@@ -195,6 +259,20 @@ public final class Server
             return missingSearchTerm(response);
         }
 
+        SearchOptions options = parseOptions(request, response);
+
+        if (options == null)
+        {
+            return response;
+        }
+
+        Deadline deadline = parseDeadline(request.queryParams(TIMEOUT));
+
+        if (deadline == null)
+        {
+            return badRequest(response, TIMEOUT + " must be a positive number");
+        }
+
         AROMA.begin().titled("Received Request")
              .withPriority(Priority.MEDIUM)
              .withBody("From [{}] to GET all words with '{}' in the definition", request.ip(), term)
@@ -203,29 +281,222 @@ public final class Server
         response.status(200);
         response.type(APPLICATION_JSON);
 
-        Predicate<LexisWord> filter = (word) ->
+        long start = System.currentTimeMillis();
+        String key = ResponseCache.keyOf("containing-in-definition", term, options);
+        RenderedResponse results = RESPONSES.get(key, deadline, () -> SEARCHES.run(() ->
+            search("words with '" + term + "' in the definition",
+                   () -> Words.DEFINITIONS.planFor(term, options.readsAllMatches()),
+                   options,
+                   deadline), deadline));
+        long latency = System.currentTimeMillis() - start;
+
+        LOG.info("Found {} words with term '{}' in definition in {}ms", results.wordCount(), term, latency);
+        AROMA.begin().titled("Request Complete")
+             .withPriority(Priority.LOW)
+             .withBody("Found {} words with '{}' in definitions in {}ms for IP [{}]", results.wordCount(), term, latency, request
+                     .ip())
+             .send();
+
+        return respondWith(results, request, response);
+    }
+
+    Object getAllWordsSimilarTo(Request request, Response response)
+    {
+        String term = request.params("searchTerm");
+
+        if (Strings.isNullOrEmpty(term))
         {
-            return word.getDefinitions()
-                       .stream()
-                       .flatMap(def -> def.getTerms().stream())
-                       .anyMatch(def -> def.contains(term));
-        };
+            return missingSearchTerm(response);
+        }
+
+        SearchOptions options = parseOptions(request, response);
+
+        if (options == null)
+        {
+            return response;
+        }
+
+        Integer maxEdits = parseMaxEdits(request.queryParams("maxEdits"));
+
+        if (maxEdits == null)
+        {
+            return badRequest(response, "maxEdits must be a number between 0 and " + MAX_EDITS_LIMIT);
+        }
+
+        Deadline deadline = parseDeadline(request.queryParams(TIMEOUT));
+
+        if (deadline == null)
+        {
+            return badRequest(response, TIMEOUT + " must be a positive number");
+        }
+
+        AROMA.begin().titled("Received Request")
+             .withPriority(Priority.MEDIUM)
+             .withBody("From [{}] to GET all words within {} edits of '{}'", request.ip(), maxEdits, term)
+             .send();
+
+        response.status(200);
+        response.type(APPLICATION_JSON);
 
         long start = System.currentTimeMillis();
-        List<JsonObject> results = Words.WORDS.parallelStream()
-                                              .filter(filter)
-                                              .map(LexisWord::asJSON)
-                                              .collect(toList());
+        RenderedResponse results = SEARCHES.run(() ->
+            render(options.apply(Words.FUZZY.wordsWithin(term, maxEdits, deadline)), deadline), deadline);
         long latency = System.currentTimeMillis() - start;
 
-        LOG.info("Found {} words with term '{}' in definition in {}ms", results.size(), term, latency);
+        LOG.info("Found {} words within {} edits of '{}' in {}ms", results.wordCount(), maxEdits, term, latency);
         AROMA.begin().titled("Request Complete")
              .withPriority(Priority.LOW)
-             .withBody("Found {} words with '{}' in definitions in {}ms for IP [{}]", results.size(), term, latency, request
+             .withBody("Found {} words within {} edits of '{}' in {}ms for IP [{}]", results.wordCount(), maxEdits, term, latency, request
                      .ip())
              .send();
 
-        return results;
+        return respondWith(results, request, response);
+    }
+
+    Object getLemmasOfInflectedForm(Request request, Response response)
+    {
+        String form = request.params("form");
+
+        if (Strings.isNullOrEmpty(form))
+        {
+            return missingSearchTerm(response);
+        }
+
+        SearchOptions options = parseOptions(request, response);
+
+        if (options == null)
+        {
+            return response;
+        }
+
+        Deadline deadline = parseDeadline(request.queryParams(TIMEOUT));
+
+        if (deadline == null)
+        {
+            return badRequest(response, TIMEOUT + " must be a positive number");
+        }
+
+        AROMA.begin().titled("Received Request")
+             .withPriority(Priority.MEDIUM)
+             .withBody("From [{}] to GET the words inflected as '{}'", request.ip(), form)
+             .send();
+
+        response.status(200);
+        response.type(APPLICATION_JSON);
+
+        long start = System.currentTimeMillis();
+        SearchOptions.Page page = SEARCHES.run(() -> options.apply(Words.INFLECTIONS.lemmasOf(form)), deadline);
+        int[] results = page.wordIds();
+        long latency = System.currentTimeMillis() - start;
+
+        LOG.info("Found {} words inflected as '{}' in {}ms", results.length, form, latency);
+        AROMA.begin().titled("Request Complete")
+             .withPriority(Priority.LOW)
+             .withBody("Found {} words inflected as '{}' in {}ms for IP [{}]", results.length, form, latency, request.ip())
+             .send();
+
+        return respondWith(page, deadline, request, response);
+    }
+
+    Object searchByQuery(Request request, Response response)
+    {
+        String body = request.body();
+
+        if (Strings.isNullOrEmpty(body))
+        {
+            return badRequest(response, "Missing query");
+        }
+
+        SearchOptions options = parseOptions(request, response);
+
+        if (options == null)
+        {
+            return response;
+        }
+
+        Deadline deadline = parseDeadline(request.queryParams(TIMEOUT));
+
+        if (deadline == null)
+        {
+            return badRequest(response, TIMEOUT + " must be a positive number");
+        }
+
+        Query query;
+        try
+        {
+            query = Words.QUERIES.parse(JSONConvertible.GSON.fromJson(body, JsonElement.class));
+        }
+        catch (JsonParseException | IllegalArgumentException ex)
+        {
+            return badRequest(response, "Invalid query: " + ex.getMessage());
+        }
+
+        AROMA.begin().titled("Received Request")
+             .withPriority(Priority.MEDIUM)
+             .withBody("From [{}] to search with query {}", request.ip(), body)
+             .send();
+
+        response.status(200);
+        response.type(APPLICATION_JSON);
+
+        long start = System.currentTimeMillis();
+        SearchOptions.Page page = SEARCHES.run(() -> options.apply(query.matches(deadline)), deadline);
+        int[] results = page.wordIds();
+        long latency = System.currentTimeMillis() - start;
+
+        LOG.info("Found {} words matching query {} in {}ms", results.length, body, latency);
+        AROMA.begin().titled("Request Complete")
+             .withPriority(Priority.LOW)
+             .withBody("Found {} words matching query {} in {}ms for IP [{}]", results.length, body, latency, request.ip())
+             .send();
+
+        return respondWith(page, deadline, request, response);
+    }
+
+    Object getSuggestions(Request request, Response response)
+    {
+        String prefix = request.params("prefix");
+
+        if (Strings.isNullOrEmpty(prefix))
+        {
+            return missingSearchTerm(response);
+        }
+
+        Integer limit = parseSuggestionLimit(request.queryParams("limit"));
+
+        if (limit == null)
+        {
+            return badRequest(response, "limit must be a number between 1 and " + PrefixIndex.MAX_SUGGESTIONS);
+        }
+
+        //This route is hit on every keystroke, so it is only logged, and not sent to Aroma
+        response.status(200);
+        response.type(APPLICATION_JSON);
+
+        long start = System.currentTimeMillis();
+        PrefixIndex.Suggestions suggestions = Words.PREFIXES.suggestionsFor(prefix, limit);
+
+        JsonArray forms = new JsonArray();
+        suggestions.forms().forEach(forms::add);
+
+        JsonObject json = new JsonObject();
+        json.addProperty("prefix", prefix);
+        json.addProperty("count", suggestions.count());
+        json.add("suggestions", forms);
+
+        long latency = System.currentTimeMillis() - start;
+        LOG.debug("Suggested {} of {} words starting with '{}' in {}ms for IP [{}]",
+                  forms.size(), suggestions.count(), prefix, latency, request.ip());
+
+        return json;
+    }
+
+    Object getCacheStats(Request request, Response response)
+    {
+        response.status(200);
+        response.type(APPLICATION_JSON);
+
+        return RESPONSES.stats().asJSON();
     }
 
     Object getAnyWord(Request request, Response response)
@@ -258,6 +529,140 @@ public final class Server
         return json;
     }
 
+    /**
+     * Writes a page of results to the response, and passes the cursor for the next page, if any,
+     * in the {@value #NEXT_CURSOR} header. As with a {@linkplain RenderedResponse rendered} page,
+     * {@value #PARTIAL_RESULTS} is set if the search missed its deadline, so that some matches may be missing.
+     *
+     * @return The body for Spark to send, which is empty since the results have already been written.
+     */
+    private String respondWith(SearchOptions.Page page, Deadline deadline, Request request, Response response)
+    {
+        if (deadline.wasMissed())
+        {
+            response.header(PARTIAL_RESULTS, "true");
+        }
+
+        try
+        {
+            writeJSON(page, response);
+        }
+        catch (IOException ex)
+        {
+            LOG.warn("Failed to write {} words to IP [{}]", page.wordIds().length, request.ip(), ex);
+        }
+
+        return "";
+    }
+
+    /**
+     * Writes a page of results that has already been rendered, such as one from the {@link #RESPONSES cache}.
+     */
+    private String respondWith(RenderedResponse rendered, Request request, Response response)
+    {
+        if (rendered.nextCursor() != null)
+        {
+            response.header(NEXT_CURSOR, rendered.nextCursor());
+        }
+
+        if (rendered.isPartial())
+        {
+            response.header(PARTIAL_RESULTS, "true");
+        }
+
+        try
+        {
+            HttpServletResponse raw = response.raw();
+            raw.setContentLength(rendered.body().length);
+            raw.getOutputStream().write(rendered.body());
+        }
+        catch (IOException ex)
+        {
+            LOG.warn("Failed to write {} words to IP [{}]", rendered.wordCount(), request.ip(), ex);
+        }
+
+        return "";
+    }
+
+    /**
+     * Plans a search, then runs it, logging the plan chosen and how long each step took.
+     */
+    private static RenderedResponse search(String description,
+                                           Supplier<SearchPlan> planner,
+                                           SearchOptions options,
+                                           Deadline deadline)
+    {
+        long begin = System.currentTimeMillis();
+        SearchPlan plan = planner.get();
+        long planned = System.currentTimeMillis();
+
+        RenderedResponse results = render(options.apply(plan.stream(deadline)), deadline);
+        long finished = System.currentTimeMillis();
+
+        LOG.info("Searched for {} with {}: planned in {}ms, ran in {}ms{}",
+                 description, plan, planned - begin, finished - planned, results.isPartial() ? " before timing out" : "");
+
+        return results;
+    }
+
+    private static RenderedResponse render(SearchOptions.Page page, Deadline deadline)
+    {
+        return RenderedResponse.of(page, Words.RENDERED, deadline.wasMissed());
+    }
+
+    /**
+     * Writes every word, gzipped if the client accepts it. Both bodies are computed ahead of time and
+     * carry a strong ETag derived from the {@linkplain Words#CORPUS_VERSION version of the corpus},
+     * so a client that already has the current copy is answered with a 304 and no body.
+     */
+    private void writeAllWords(Request request, Response response) throws IOException
+    {
+        boolean gzip = ContentNegotiation.acceptsGzip(request.headers("Accept-Encoding"));
+        String version = gzip ? Words.CORPUS_VERSION + "-" + ContentNegotiation.GZIP : Words.CORPUS_VERSION;
+        String etag = ContentNegotiation.strongETag(version);
+
+        response.header("ETag", etag);
+        response.header("Vary", "Accept-Encoding");
+
+        if (ContentNegotiation.matchesETag(request.headers("If-None-Match"), etag))
+        {
+            response.status(304);
+            return;
+        }
+
+        HttpServletResponse raw = response.raw();
+
+        if (gzip)
+        {
+            response.header("Content-Encoding", ContentNegotiation.GZIP);
+            raw.setContentLength(Words.ALL_WORDS_GZIPPED.length);
+            raw.getOutputStream().write(Words.ALL_WORDS_GZIPPED);
+
+            //Commit the response now, or Spark would gzip its own empty body onto the end of it
+            raw.flushBuffer();
+        }
+        else
+        {
+            raw.setContentLengthLong(Words.RENDERED.lengthOfAll());
+            Words.RENDERED.writeAllTo(raw.getOutputStream());
+        }
+    }
+
+    /**
+     * Writes the {@linkplain Words#RENDERED pre-rendered} JSON of the words straight to the response.
+     */
+    private void writeJSON(SearchOptions.Page page, Response response) throws IOException
+    {
+        if (page.nextCursor() != null)
+        {
+            response.header(NEXT_CURSOR, page.nextCursor());
+        }
+
+        HttpServletResponse raw = response.raw();
+        raw.setContentLengthLong(Words.RENDERED.lengthOf(page.wordIds()));
+        Words.RENDERED.writeTo(raw.getOutputStream(), page.wordIds());
+    }
+
     private Response missingSearchTerm(Response response)
     {
         LOG.warn("Missing search term");
@@ -273,6 +678,114 @@ public final class Server
         return response;
     }
 
+    /**
+     * Answers a search that the {@link #SEARCHES executor} turned away with a 503, so that the client backs off
+     * and tries again, rather than waiting behind every search already queued.
+     */
+    private void searchRejected(SearchRejectedException ex, Request request, Response response)
+    {
+        LOG.warn("Rejected search from IP [{}]: {}", request.ip(), ex.getMessage());
+
+        AROMA.begin().titled("Search Rejected")
+             .withPriority(Priority.HIGH)
+             .withBody("Rejected search {} from IP [{}]: {}", request.pathInfo(), request.ip(), ex.getMessage())
+             .send();
+
+        response.status(503);
+        response.header("Retry-After", "1");
+        response.body(ex.getMessage());
+    }
+
+    private Response badRequest(Response response, String message)
+    {
+        LOG.warn("Bad request: {}", message);
+
+        AROMA.begin().titled("Invalid Request")
+             .withPriority(Priority.MEDIUM)
+             .withBody(message)
+             .send();
+
+        response.status(400);
+        response.body(message);
+
+        return response;
+    }
+
+    /**
+     * @return The options named by the query parameters of the request, or null if they are invalid,
+     *         in which case the response has already been marked as a bad request.
+     */
+    private SearchOptions parseOptions(Request request, Response response)
+    {
+        try
+        {
+            return SearchOptions.fromQuery(request::queryParams, Words.FACETS, Words.RANKINGS, Words.CORPUS_VERSION);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            badRequest(response, ex.getMessage());
+            return null;
+        }
+    }
+
+    private Integer parseSuggestionLimit(String parameter)
+    {
+        if (Strings.isNullOrEmpty(parameter))
+        {
+            return PrefixIndex.MAX_SUGGESTIONS;
+        }
+
+        try
+        {
+            int limit = Integer.parseInt(parameter);
+            return limit >= 1 && limit <= PrefixIndex.MAX_SUGGESTIONS ? limit : null;
+        }
+        catch (NumberFormatException ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * @return The deadline asked for by the {@value #TIMEOUT} parameter, {@link Deadline#NONE} if there is none,
+     *         or null if it is invalid.
+     */
+    private Deadline parseDeadline(String parameter)
+    {
+        if (Strings.isNullOrEmpty(parameter))
+        {
+            return Deadline.NONE;
+        }
+
+        try
+        {
+            long timeout = Long.parseLong(parameter);
+            return timeout > 0 ? Deadline.after(timeout) : null;
+        }
+        catch (NumberFormatException ex)
+        {
+            return null;
+        }
+    }
+
+    private Integer parseMaxEdits(String parameter)
+    {
+        if (Strings.isNullOrEmpty(parameter))
+        {
+            return DEFAULT_MAX_EDITS;
+        }
+
+        try
+        {
+            int maxEdits = Integer.parseInt(parameter);
+            return maxEdits >= 0 && maxEdits <= MAX_EDITS_LIMIT ? maxEdits : null;
+        }
+        catch (NumberFormatException ex)
+        {
+            return null;
+        }
+    }
+
     private LexisWord getRandomWord()
     {
         int size = Words.WORDS.size();
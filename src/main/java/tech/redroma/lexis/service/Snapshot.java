@@ -0,0 +1,419 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Resources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.lexis.service.words.PackedWords;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * A binary snapshot of the {@link Corpus}, generated from its JSON at build time so that the service
+ * can start without parsing any JSON.
+ * <p>
+ * The snapshot begins with a header of {@value #HEADER_LENGTH} bytes: a magic number, the version of the format,
+ * the {@linkplain Corpus#version() version of the corpus} it was made from, the {@linkplain Fingerprint fingerprint}
+ * of its JSON, and the length and CRC-32 of the {@linkplain PackedWords packed words} that follow. A snapshot with
+ * another format, a bad checksum, or made from a different corpus is rejected, and the corpus is read from its
+ * JSON instead.
+ * <p>
+ * At startup the fingerprint is compared with the JSON being served, so that a snapshot left behind after the JSON
+ * is replaced is rejected, without hashing the whole JSON first. The build also records the version of the corpus
+ * in {@value #VERSION_RESOURCE}, beside the snapshot, for running the service without the JSON.
+ * <p>
+ * A snapshot in a file on disk is mapped into memory, and its words are decoded straight from the mapping.
+ * One inside a jar cannot be mapped, so it is read onto the heap first, and briefly takes up its full size
+ * there. To have it mapped when running from a jar, extract it and name the file with {@value #PROPERTY}.
+ *
+ * @author SirWellington
+ */
+public final class Snapshot
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(Snapshot.class);
+
+    static final String RESOURCE = "LexisWords.snapshot";
+
+    /**
+     * Holds the version of the corpus the build packaged, written beside the snapshot.
+     */
+    static final String VERSION_RESOURCE = "LexisWords.version";
+
+    /**
+     * Names a snapshot file to load instead of the one on the classpath.
+     */
+    static final String PROPERTY = "lexis.snapshot";
+
+    static final int MAGIC = 0x4C584E53;
+    static final int FORMAT_VERSION = 2;
+    static final int HEADER_LENGTH = 4 + 4 + Corpus.VERSION_LENGTH + 8 + 4 + 4 + 4;
+
+    private Snapshot()
+    {
+    }
+
+    /**
+     * @param json The fingerprint of the JSON the corpus was read from.
+     */
+    static void write(Corpus corpus, Fingerprint json, OutputStream output) throws IOException
+    {
+        checkThat(corpus, json, output).are(notNull());
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream words = new DataOutputStream(payload);
+        PackedWords.write(corpus.words(), words);
+        words.flush();
+
+        byte[] bytes = payload.toByteArray();
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes, 0, bytes.length);
+
+        DataOutputStream data = new DataOutputStream(output);
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.write(corpus.version().getBytes(US_ASCII));
+        data.writeLong(json.length);
+        data.writeInt(json.checksum);
+        data.writeInt(bytes.length);
+        data.writeInt((int) checksum.getValue());
+        data.write(bytes);
+        data.flush();
+    }
+
+    /**
+     * @param expectedVersion The version of the corpus the snapshot must have been made from, or null to accept any.
+     * @param expectedJson    The fingerprint of the JSON the snapshot must have been made from, or null to accept any.
+     *
+     * @throws IOException If the buffer does not hold a valid snapshot of that version and JSON.
+     */
+    static Corpus read(ByteBuffer buffer, String expectedVersion, Fingerprint expectedJson) throws IOException
+    {
+        checkThat(buffer).is(notNull());
+
+        if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC)
+        {
+            throw new IOException("Not a snapshot");
+        }
+
+        int format = buffer.getInt();
+
+        if (format != FORMAT_VERSION)
+        {
+            throw new IOException("Snapshot has format " + format + ", but only " + FORMAT_VERSION + " can be read");
+        }
+
+        byte[] versionBytes = new byte[Corpus.VERSION_LENGTH];
+        buffer.get(versionBytes);
+        String version = new String(versionBytes, US_ASCII);
+
+        if (expectedVersion != null && !expectedVersion.equals(version))
+        {
+            throw new IOException("Snapshot was made from corpus " + version + ", but the corpus is " + expectedVersion);
+        }
+
+        Fingerprint json = new Fingerprint(buffer.getLong(), buffer.getInt());
+
+        if (expectedJson != null && !expectedJson.equals(json))
+        {
+            throw new IOException("Snapshot was made from JSON with " + json + ", but the JSON has " + expectedJson);
+        }
+
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+
+        if (length != buffer.remaining() || checksumOf(buffer.slice()) != checksum)
+        {
+            throw new IOException("Snapshot is corrupt");
+        }
+
+        try
+        {
+            return new Corpus(PackedWords.read(buffer), version);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            throw new IOException("Snapshot is corrupt", ex);
+        }
+    }
+
+    /**
+     * Like {@link #read(ByteBuffer, String, Fingerprint)}, over a file mapped into memory.
+     */
+    static Corpus map(Path path, String expectedVersion, Fingerprint expectedJson) throws IOException
+    {
+        checkThat(path).is(notNull());
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), expectedVersion, expectedJson);
+        }
+    }
+
+    /**
+     * Loads the snapshot named by the {@code lexis.snapshot} system property, or else the one on the classpath.
+     * Snapshots on disk are mapped into memory, and one inside a jar is read onto the heap.
+     *
+     * @param expectedVersion The version of the corpus the snapshot must have been made from, or null to accept any.
+     * @param expectedJson    The fingerprint of the JSON the snapshot must have been made from, or null to accept any.
+     *
+     * @return The corpus, or null if there is no snapshot.
+     *
+     * @throws IOException If the snapshot cannot be read, or is not a valid snapshot of that version and JSON.
+     */
+    static Corpus load(String expectedVersion, Fingerprint expectedJson) throws IOException
+    {
+        String file = System.getProperty(PROPERTY);
+
+        if (file != null)
+        {
+            return map(Paths.get(file), expectedVersion, expectedJson);
+        }
+
+        URL url = Snapshot.class.getClassLoader().getResource(RESOURCE);
+
+        if (url == null)
+        {
+            return null;
+        }
+
+        if ("file".equals(url.getProtocol()))
+        {
+            try
+            {
+                return map(Paths.get(url.toURI()), expectedVersion, expectedJson);
+            }
+            catch (URISyntaxException ex)
+            {
+                throw new IOException("Invalid snapshot URL: " + url, ex);
+            }
+        }
+
+        //Inside a jar, so it cannot be mapped
+        return read(ByteBuffer.wrap(Resources.toByteArray(url)), expectedVersion, expectedJson);
+    }
+
+    /**
+     * @return The version of the corpus recorded on the classpath at build time, or null if none was recorded.
+     *
+     * @throws IOException If the version cannot be read.
+     */
+    static String recordedVersion() throws IOException
+    {
+        URL url = Snapshot.class.getClassLoader().getResource(VERSION_RESOURCE);
+
+        return url != null ? readVersion(url) : null;
+    }
+
+    static String readVersion(URL url) throws IOException
+    {
+        checkThat(url).is(notNull());
+
+        String version = new String(Resources.toByteArray(url), US_ASCII).trim();
+
+        if (version.length() != Corpus.VERSION_LENGTH)
+        {
+            throw new IOException("Not a version of the corpus: '" + version + "'");
+        }
+
+        return version;
+    }
+
+    private static int checksumOf(ByteBuffer buffer)
+    {
+        CRC32 checksum = new CRC32();
+        byte[] chunk = new byte[1 << 16];
+
+        while (buffer.hasRemaining())
+        {
+            int length = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, length);
+            checksum.update(chunk, 0, length);
+        }
+
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Writes a snapshot of the JSON corpus at the first path to the second, and records the version of the corpus
+     * in {@value #VERSION_RESOURCE} beside it. This runs as part of the build, and does nothing if there is no JSON,
+     * so that the service can still be built without the corpus.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 2)
+        {
+            throw new IllegalArgumentException("Usage: Snapshot <corpus JSON> <snapshot>");
+        }
+
+        Path json = Paths.get(args[0]);
+        Path snapshot = Paths.get(args[1]);
+
+        if (!Files.isRegularFile(json))
+        {
+            LOG.warn("No corpus at {}. Not writing a snapshot.", json);
+            return;
+        }
+
+        long begin = System.currentTimeMillis();
+
+        Corpus corpus;
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(json)))
+        {
+            corpus = Corpus.read(input);
+        }
+
+        if (!corpus.failures().isEmpty())
+        {
+            throw new IOException("Not writing a snapshot of a corpus that failed to parse: " + corpus.failures());
+        }
+
+        if (snapshot.getParent() != null)
+        {
+            Files.createDirectories(snapshot.getParent());
+        }
+
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(snapshot)))
+        {
+            write(corpus, Fingerprint.of(json.toUri().toURL()), output);
+        }
+
+        Files.write(snapshot.resolveSibling(VERSION_RESOURCE), corpus.version().getBytes(US_ASCII));
+
+        long latency = System.currentTimeMillis() - begin;
+        LOG.info("Wrote a snapshot of {} words to {} ({} bytes) in {}ms",
+                 corpus.words().size(), snapshot, Files.size(snapshot), latency);
+    }
+
+    /**
+     * Identifies the JSON a snapshot was made from, cheaply enough to check at every startup: its length, and
+     * a CRC-32 of {@value #SAMPLES} blocks of {@value #BLOCK_LENGTH} bytes spread evenly through it, from the
+     * first to the last. JSON no larger than the blocks is read in full. Replacing the JSON almost always
+     * changes one or the other, but an edit that keeps its length and falls between the blocks goes unnoticed.
+     */
+    static final class Fingerprint
+    {
+
+        static final int SAMPLES = 16;
+        static final int BLOCK_LENGTH = 4096;
+
+        final long length;
+        final int checksum;
+
+        Fingerprint(long length, int checksum)
+        {
+            this.length = length;
+            this.checksum = checksum;
+        }
+
+        static Fingerprint of(URL json) throws IOException
+        {
+            checkThat(json).is(notNull());
+
+            URLConnection connection = json.openConnection();
+            long length = connection.getContentLengthLong();
+
+            if (length < 0)
+            {
+                throw new IOException("Unknown length of " + json);
+            }
+
+            CRC32 checksum = new CRC32();
+
+            try (InputStream input = connection.getInputStream())
+            {
+                if (length <= (long) SAMPLES * BLOCK_LENGTH)
+                {
+                    checksum.update(ByteStreams.toByteArray(input));
+                }
+                else
+                {
+                    byte[] block = new byte[BLOCK_LENGTH];
+                    long position = 0;
+
+                    for (int i = 0; i < SAMPLES; ++i)
+                    {
+                        long start = (length - BLOCK_LENGTH) * i / (SAMPLES - 1);
+
+                        ByteStreams.skipFully(input, start - position);
+                        ByteStreams.readFully(input, block);
+                        checksum.update(block, 0, block.length);
+
+                        position = start + BLOCK_LENGTH;
+                    }
+                }
+            }
+
+            return new Fingerprint(length, (int) checksum.getValue());
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int hash = 7;
+            hash = 59 * hash + (int) (this.length ^ (this.length >>> 32));
+            hash = 59 * hash + this.checksum;
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (obj == null)
+            {
+                return false;
+            }
+            if (getClass() != obj.getClass())
+            {
+                return false;
+            }
+            final Fingerprint other = (Fingerprint) obj;
+            if (this.length != other.length)
+            {
+                return false;
+            }
+            return this.checksum == other.checksum;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "length " + length + " and checksum " + Integer.toHexString(checksum);
+        }
+    }
+
+}
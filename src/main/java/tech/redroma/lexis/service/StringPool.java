@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.redroma.lexis.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shares equal strings, so that each distinct one is held in memory once.
+ * <p>
+ * The keys the search indexes are built over repeat across words: a form is often the form of several words,
+ * and forms that differ only in case or accents normalize to the same key. Passing each key through a pool
+ * before handing it to the indexes keeps one copy of each. The pool keeps a rough count of the bytes saved,
+ * based on the usual size of a {@link String} and its array on a 64-bit JVM. It is not thread-safe, and
+ * is meant to be dropped once the indexes are built.
+ *
+ * @author SirWellington
+ */
+final class StringPool
+{
+
+    /** A String and its array, apart from the characters themselves. */
+    private static final int STRING_BYTES = 40;
+
+    private final Map<String, String> strings = new HashMap<>();
+
+    private long shared;
+    private long bytesSaved;
+
+    /**
+     * @return The string in the pool equal to the given one, which becomes that string if there is none yet.
+     */
+    String share(String string)
+    {
+        if (string == null)
+        {
+            return null;
+        }
+
+        String existing = strings.putIfAbsent(string, string);
+
+        if (existing == null)
+        {
+            return string;
+        }
+
+        if (existing != string)
+        {
+            ++shared;
+            bytesSaved += STRING_BYTES + 2L * string.length();
+        }
+
+        return existing;
+    }
+
+    /**
+     * @return The number of strings that were replaced by an equal one already in the pool.
+     */
+    long shared()
+    {
+        return shared;
+    }
+
+    /**
+     * @return About how many bytes of memory were saved by sharing strings.
+     */
+    long bytesSaved()
+    {
+        return bytesSaved;
+    }
+
+}
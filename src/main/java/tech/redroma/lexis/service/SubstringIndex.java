@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+/**
+ * Finds the words that have a form containing a search term. Forms and terms are compared
+ * by their {@linkplain LatinNormalizer normalized keys}.
+ *
+ * @author SirWellington
+ */
+interface SubstringIndex
+{
+
+    /**
+     * @return The ids of all the words that have a form containing {@code term}, in ascending order.
+     */
+    int[] wordsContaining(String term);
+
+    /**
+     * @param readsAll Whether the caller will read every match, rather than stopping after the first few.
+     *
+     * @return How the index would find the words that have a form containing {@code term}.
+     */
+    default SearchPlan planFor(String term, boolean readsAll)
+    {
+        return SearchPlan.exact(wordsContaining(term));
+    }
+
+    /**
+     * @return An estimate of the heap used by the index, in bytes.
+     */
+    long estimatedSizeInBytes();
+
+    /**
+     * The available substring search engines, selected at startup with the {@code lexis.containing.index}
+     * system property.
+     */
+    enum Engine
+    {
+        TRIGRAM,
+        SUFFIX_ARRAY;
+
+        static final String PROPERTY = "lexis.containing.index";
+
+        /**
+         * @return The engine named by the system property, or {@link #TRIGRAM} if none is set.
+         */
+        static Engine fromSystemProperty()
+        {
+            String value = System.getProperty(PROPERTY, "trigram");
+            return Engine.valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+}
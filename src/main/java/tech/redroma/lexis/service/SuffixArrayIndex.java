@@ -0,0 +1,368 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * A suffix array over the key of every form in the corpus, packed into a single buffer of characters
+ * with a separator after each form.
+ * <p>
+ * Every substring of a form is the prefix of some suffix, so the suffixes matching a term occupy
+ * one contiguous range of the array. The start of that range is found with a binary search in
+ * O(m log n), and the rest of it is read off the LCP array without comparing any more characters.
+ * Unlike the {@link TrigramIndex}, this answers terms of any length.
+ *
+ * @author SirWellington
+ */
+final class SuffixArrayIndex implements SubstringIndex
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(SuffixArrayIndex.class);
+
+    static final char SEPARATOR = '\u0000';
+
+    private static final int INSERTION_SORT_THRESHOLD = 12;
+
+    private final int wordCount;
+
+    /** All the form keys, each followed by the {@link #SEPARATOR}. */
+    private final char[] text;
+
+    /** Where each form begins in the {@link #text}, in ascending order. */
+    private final int[] formStarts;
+
+    /** The word that each form belongs to. */
+    private final int[] formWords;
+
+    /** The starting positions of the suffixes of each form, in sorted order. */
+    private final int[] suffixes;
+
+    /** The length of the prefix each suffix shares with the one before it, up to the separator. */
+    private final int[] lcp;
+
+    private SuffixArrayIndex(int wordCount,
+                             char[] text,
+                             int[] formStarts,
+                             int[] formWords,
+                             int[] suffixes,
+                             int[] lcp)
+    {
+        this.wordCount = wordCount;
+        this.text = text;
+        this.formStarts = formStarts;
+        this.formWords = formWords;
+        this.suffixes = suffixes;
+        this.lcp = lcp;
+    }
+
+    /**
+     * @param formKeys The normalized keys of the forms of each word, indexed by word id.
+     */
+    static SuffixArrayIndex of(String[][] formKeys)
+    {
+        checkThat(formKeys).is(notNull());
+
+        long begin = System.currentTimeMillis();
+
+        int formCount = 0;
+        int length = 0;
+        for (String[] keys : formKeys)
+        {
+            for (String form : keys)
+            {
+                ++formCount;
+                length += form.length() + 1;
+            }
+        }
+
+        char[] text = new char[length];
+        int[] formStarts = new int[formCount];
+        int[] formWords = new int[formCount];
+        int[] suffixes = new int[length - formCount];
+
+        int position = 0;
+        int form = 0;
+        int suffix = 0;
+        for (int id = 0; id < formKeys.length; ++id)
+        {
+            for (String string : formKeys[id])
+            {
+                formStarts[form] = position;
+                formWords[form] = id;
+                ++form;
+
+                string.getChars(0, string.length(), text, position);
+
+                for (int i = 0; i < string.length(); ++i)
+                {
+                    suffixes[suffix++] = position + i;
+                }
+
+                position += string.length();
+                text[position++] = SEPARATOR;
+            }
+        }
+
+        sort(text, suffixes, 0, suffixes.length - 1, 0);
+
+        int[] lcp = new int[suffixes.length];
+        for (int i = 1; i < suffixes.length; ++i)
+        {
+            lcp[i] = commonPrefixLength(text, suffixes[i - 1], suffixes[i]);
+        }
+
+        SuffixArrayIndex index = new SuffixArrayIndex(formKeys.length, text, formStarts, formWords, suffixes, lcp);
+
+        long latency = System.currentTimeMillis() - begin;
+        LOG.info("Built suffix array of {} suffixes in {}ms, using about {} bytes",
+                 suffixes.length, latency, index.estimatedSizeInBytes());
+
+        return index;
+    }
+
+    @Override
+    public int[] wordsContaining(String term)
+    {
+        checkThat(term).is(notNull());
+
+        String key = LatinNormalizer.normalize(term);
+
+        if (key.isEmpty())
+        {
+            return IntStream.range(0, wordCount)
+                .filter(this::hasForms)
+                .toArray();
+        }
+
+        if (key.indexOf(SEPARATOR) >= 0)
+        {
+            return Postings.EMPTY;
+        }
+
+        int first = lowerBound(key);
+
+        if (first == suffixes.length || compare(suffixes[first], key) != 0)
+        {
+            return Postings.EMPTY;
+        }
+
+        Postings.Builder matches = new Postings.Builder();
+        matches.add(wordAt(suffixes[first]));
+
+        for (int i = first + 1; i < suffixes.length && lcp[i] >= key.length(); ++i)
+        {
+            matches.add(wordAt(suffixes[i]));
+        }
+
+        return matches.build();
+    }
+
+    @Override
+    public long estimatedSizeInBytes()
+    {
+        return 2L * text.length +
+               4L * (formStarts.length + formWords.length + suffixes.length + lcp.length);
+    }
+
+    /**
+     * @return The position in the suffix array of the first suffix that is not less than {@code term}.
+     */
+    private int lowerBound(String term)
+    {
+        int low = 0;
+        int high = suffixes.length;
+
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (compare(suffixes[middle], term) < 0)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Compares the suffix at {@code position} with {@code term}, looking at no more than
+     * {@code term.length()} characters. A suffix starting with the term compares equal to it.
+     */
+    private int compare(int position, String term)
+    {
+        for (int i = 0; i < term.length(); ++i)
+        {
+            char character = text[position + i];
+
+            if (character == SEPARATOR)
+            {
+                return -1;
+            }
+
+            if (character != term.charAt(i))
+            {
+                return character < term.charAt(i) ? -1 : 1;
+            }
+        }
+
+        return 0;
+    }
+
+    private boolean hasForms(int id)
+    {
+        int form = Arrays.binarySearch(formWords, id);
+        return form >= 0;
+    }
+
+    private int wordAt(int position)
+    {
+        int form = Arrays.binarySearch(formStarts, position);
+
+        if (form < 0)
+        {
+            form = -form - 2;
+        }
+
+        return formWords[form];
+    }
+
+    private static int commonPrefixLength(char[] text, int first, int second)
+    {
+        int length = 0;
+
+        while (text[first + length] == text[second + length] && text[first + length] != SEPARATOR)
+        {
+            ++length;
+        }
+
+        return length;
+    }
+
+    /**
+     * Sorts the suffixes between {@code low} and {@code high} that share their first {@code depth}
+     * characters, using a three-way radix quicksort. Suffixes compare equal once they reach the separator.
+     */
+    private static void sort(char[] text, int[] suffixes, int low, int high, int depth)
+    {
+        while (high - low > INSERTION_SORT_THRESHOLD)
+        {
+            swap(suffixes, low, medianOfThree(text, suffixes, low, (low + high) >>> 1, high, depth));
+            char pivot = text[suffixes[low] + depth];
+
+            int lessThan = low;
+            int greaterThan = high;
+            int i = low + 1;
+
+            while (i <= greaterThan)
+            {
+                char character = text[suffixes[i] + depth];
+
+                if (character < pivot)
+                {
+                    swap(suffixes, lessThan++, i++);
+                }
+                else if (character > pivot)
+                {
+                    swap(suffixes, i, greaterThan--);
+                }
+                else
+                {
+                    ++i;
+                }
+            }
+
+            sort(text, suffixes, low, lessThan - 1, depth);
+            sort(text, suffixes, greaterThan + 1, high, depth);
+
+            if (pivot == SEPARATOR)
+            {
+                return;
+            }
+
+            low = lessThan;
+            high = greaterThan;
+            ++depth;
+        }
+
+        insertionSort(text, suffixes, low, high, depth);
+    }
+
+    private static void insertionSort(char[] text, int[] suffixes, int low, int high, int depth)
+    {
+        for (int i = low + 1; i <= high; ++i)
+        {
+            for (int j = i; j > low && compareSuffixes(text, suffixes[j], suffixes[j - 1], depth) < 0; --j)
+            {
+                swap(suffixes, j, j - 1);
+            }
+        }
+    }
+
+    private static int compareSuffixes(char[] text, int first, int second, int depth)
+    {
+        int i = depth;
+
+        while (text[first + i] == text[second + i])
+        {
+            if (text[first + i] == SEPARATOR)
+            {
+                return 0;
+            }
+
+            ++i;
+        }
+
+        return text[first + i] < text[second + i] ? -1 : 1;
+    }
+
+    private static int medianOfThree(char[] text, int[] suffixes, int first, int second, int third, int depth)
+    {
+        char a = text[suffixes[first] + depth];
+        char b = text[suffixes[second] + depth];
+        char c = text[suffixes[third] + depth];
+
+        if (a < b)
+        {
+            return b < c ? second : (a < c ? third : first);
+        }
+        else
+        {
+            return a < c ? first : (b < c ? third : second);
+        }
+    }
+
+    private static void swap(int[] array, int first, int second)
+    {
+        int temporary = array[first];
+        array[first] = array[second];
+        array[second] = temporary;
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.redroma.lexis.service.words.PackedStrings;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Maps every three-character sequence found in the form keys of a word to the words containing it.
+ * <p>
+ * A substring search intersects the posting lists of the trigrams in the search term, and only checks
+ * the words that survive. Terms shorter than a trigram fall back to scanning every word.
+ *
+ * @author SirWellington
+ */
+final class TrigramIndex implements SubstringIndex
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(TrigramIndex.class);
+
+    static final int GRAM_LENGTH = 3;
+
+    private final PackedStrings formKeys;
+    private final Map<Long, int[]> postings;
+
+    private TrigramIndex(PackedStrings formKeys, Map<Long, int[]> postings)
+    {
+        this.formKeys = formKeys;
+        this.postings = postings;
+    }
+
+    /**
+     * @param formKeys The normalized keys of the forms of each word, grouped by word id.
+     */
+    static TrigramIndex of(PackedStrings formKeys)
+    {
+        checkThat(formKeys).is(notNull());
+
+        long begin = System.currentTimeMillis();
+
+        Map<Long, Postings.Builder> builders = new HashMap<>();
+
+        for (int id = 0; id < formKeys.size(); ++id)
+        {
+            for (int f = 0; f < formKeys.sizeOf(id); ++f)
+            {
+                String form = formKeys.get(id, f);
+
+                for (int i = 0; i + GRAM_LENGTH <= form.length(); ++i)
+                {
+                    builders.computeIfAbsent(trigramAt(form, i), key -> new Postings.Builder()).add(id);
+                }
+            }
+        }
+
+        Map<Long, int[]> postings = new HashMap<>(builders.size() * 2);
+        builders.forEach((trigram, builder) -> postings.put(trigram, builder.build()));
+
+        TrigramIndex index = new TrigramIndex(formKeys, postings);
+
+        long latency = System.currentTimeMillis() - begin;
+        LOG.info("Indexed {} trigrams in {}ms, using about {} bytes", postings.size(), latency, index.estimatedSizeInBytes());
+
+        return index;
+    }
+
+    @Override
+    public int[] wordsContaining(String term)
+    {
+        return planFor(term, true).stream(Deadline.NONE).toArray();
+    }
+
+    /**
+     * Terms with a trigram are looked up by the shortest intersection of their posting lists.
+     * Shorter ones have to be checked against every word.
+     */
+    @Override
+    public SearchPlan planFor(String term, boolean readsAll)
+    {
+        checkThat(term).is(notNull());
+
+        String key = LatinNormalizer.normalize(term);
+        int[] candidates = key.length() < GRAM_LENGTH ? null : candidatesFor(key);
+
+        return SearchPlan.choose(candidates, formKeys.size(), id -> formKeys.anyContains(id, key), readsAll);
+    }
+
+    /**
+     * Intersects the posting lists for each trigram in the key, starting from the shortest.
+     */
+    private int[] candidatesFor(String key)
+    {
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); ++i)
+        {
+            trigrams.add(trigramAt(key, i));
+        }
+
+        List<int[]> lists = Lists.create();
+        for (Long trigram : trigrams)
+        {
+            int[] list = postings.get(trigram);
+
+            if (list == null)
+            {
+                return Postings.EMPTY;
+            }
+
+            lists.add(list);
+        }
+
+        lists.sort(Comparator.comparingInt(list -> list.length));
+
+        int[] candidates = lists.get(0);
+        for (int i = 1; i < lists.size() && candidates.length > 0; ++i)
+        {
+            candidates = Postings.intersect(candidates, lists.get(i));
+        }
+
+        return candidates;
+    }
+
+    static long trigramAt(String string, int position)
+    {
+        return ((long) string.charAt(position) << 32) |
+               ((long) string.charAt(position + 1) << 16) |
+               string.charAt(position + 2);
+    }
+
+    @Override
+    public long estimatedSizeInBytes()
+    {
+        //Each entry costs a map node, a boxed key, and an array header on top of its ids
+        long size = 0;
+
+        for (int[] list : postings.values())
+        {
+            size += 64 + 4L * list.length;
+        }
+
+        return size;
+    }
+
+    int size()
+    {
+        return postings.size();
+    }
+
+}
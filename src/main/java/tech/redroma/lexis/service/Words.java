@@ -19,19 +19,22 @@ package tech.redroma.lexis.service;
 
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 import com.google.common.io.Resources;
-import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sir.wellington.alchemy.collections.lists.Lists;
 import tech.aroma.client.Priority;
-import tech.redroma.lexis.service.words.JSONConvertible;
-import tech.redroma.lexis.service.words.LexisWord;
-
-import static com.google.common.base.Charsets.UTF_8;
+import tech.redroma.lexis.service.words.DictionaryCodes.*;
+import tech.redroma.lexis.service.words.*;
 
 /**
  *
@@ -42,77 +45,314 @@ final class Words
     private final static Logger LOG = LoggerFactory.getLogger(Words.class);
 
     /**
-     * The Lexis Database is read into this JSON file.
+     * The Lexis Database, held as {@linkplain WordColumns columns} of arrays rather than as objects.
      */
-    final static String JSON_FILE = loadJSONFile();
+    private final static WordColumns COLUMNS;
 
-    final static List<LexisWord> WORDS = loadLexisWords();
+    /**
+     * Identifies the contents of the JSON file, so that word ids handed out to clients can be
+     * recognized as stale after the corpus changes.
+     */
+    final static String CORPUS_VERSION;
 
-    private static String loadJSONFile()
+    static
     {
-        String path = "LexisWords.pretty.json";
+        //The corpus is only needed until its words are packed into columns
+        Corpus corpus = loadCorpus();
 
-        LOG.debug("Loading JSON at {}", path);
+        COLUMNS = WordColumns.of(corpus.words());
+        CORPUS_VERSION = corpus.version();
+
+        LOG.info("Packed {} words into columns of about {} bytes", COLUMNS.size(), COLUMNS.estimatedSizeInBytes());
+    }
+
+    /**
+     * The words of the Lexis Database, by word id. Each word is created from {@link #COLUMNS} as it is read,
+     * so only the words being returned to a client are ever held as objects.
+     */
+    final static List<LexisWord> WORDS = COLUMNS.asList();
+
+    /**
+     * The JSON of {@link #WORDS}, rendered ahead of time so that responses are written without building any.
+     */
+    final static RenderedWords RENDERED = RenderedWords.of(WORDS);
+
+    /**
+     * The JSON array of all of {@link #WORDS}, compressed ahead of time for the clients that accept gzip.
+     */
+    final static byte[] ALL_WORDS_GZIPPED = RENDERED.gzipAll();
+
+    /**
+     * The {@linkplain LatinNormalizer normalized} key of every form of every word, grouped by word id.
+     * The search indexes are built over these keys.
+     */
+    final static PackedStrings FORM_KEYS;
+
+    /**
+     * The {@linkplain LatinNormalizer normalized} key of every definition term of every word, grouped by word id.
+     */
+    final static PackedStrings DEFINITION_KEYS = normalizeDefinitions(WORDS);
+
+    /**
+     * Ranks {@link #WORDS} from the most to the least frequent.
+     */
+    final static Ranking FREQUENCY;
+
+    /**
+     * Every form in {@link #WORDS}, sorted for prefix searches and suggestions.
+     */
+    final static PrefixIndex PREFIXES;
+
+    /**
+     * Answers substring searches over the forms of {@link #WORDS}, using the engine selected at startup.
+     */
+    final static SubstringIndex CONTAINING;
+
+    /**
+     * The distinct forms of {@link #WORDS}, arranged for searches by edit distance.
+     */
+    final static FuzzyIndex FUZZY;
+
+    static
+    {
+        //The indexes that keep the keys as strings share them, and are the only ones holding on to them
+        String[][] formKeys = normalizeForms(COLUMNS.forms());
+
+        FORM_KEYS = PackedStrings.of(formKeys);
+        FREQUENCY = Ranking.byFrequency(COLUMNS::supplementalInformationOf, FORM_KEYS);
+        PREFIXES = PrefixIndex.of(formKeys, COLUMNS.forms(), FREQUENCY);
+        CONTAINING = createSubstringIndex(formKeys);
+        FUZZY = FuzzyIndex.of(formKeys);
+    }
+
+    /**
+     * The English tokens used in the definitions of {@link #WORDS}.
+     */
+    final static DefinitionIndex DEFINITIONS = DefinitionIndex.of(DEFINITION_KEYS);
+
+    /**
+     * The regular inflections of {@link #WORDS}, for looking up the words an inflected form comes from.
+     */
+    final static InflectionIndex INFLECTIONS = InflectionIndex.of(WORDS);
+
+    /**
+     * The dictionary codes and grammar of {@link #WORDS}, for filtering search results.
+     */
+    final static List<Facet<?>> FACETS = Arrays.asList(
+        supplementalFacet("age", Age.class, SupplementalInformation::getAge),
+        supplementalFacet("frequency", Frequency.class, SupplementalInformation::getFrequency),
+        supplementalFacet("subjectArea", SubjectArea.class, SupplementalInformation::getSubjectArea),
+        supplementalFacet("geographicalArea", GeographicalArea.class, SupplementalInformation::getGeographicalArea),
+        supplementalFacet("source", Source.class, SupplementalInformation::getSource),
+        Facet.of("wordType", WordType.Types.class, COLUMNS.size(), Words::typeOf),
+        wordTypeFacet("gender", Noun.Gender.class, Noun.class, Noun::getGender),
+        wordTypeFacet("declension", Noun.Declension.class, Noun.class, Noun::getDeclension),
+        wordTypeFacet("conjugation", Verb.Conjugation.class, Verb.class, Verb::getConjugation),
+        wordTypeFacet("verbType", Verb.Type.class, Verb.class, Verb::getVerbType),
+        wordTypeFacet("caseType", Preposition.CaseType.class, Preposition.class, Preposition::getCaseType));
+
+    private static String[][] normalizeForms(PackedStrings forms)
+    {
+        StringPool pool = new StringPool();
+        String[][] keys = new String[forms.size()][];
+
+        for (int id = 0; id < keys.length; ++id)
+        {
+            keys[id] = new String[forms.sizeOf(id)];
+
+            for (int i = 0; i < keys[id].length; ++i)
+            {
+                keys[id][i] = pool.share(LatinNormalizer.normalize(forms.get(id, i)));
+            }
+        }
+
+        LOG.info("Shared {} repeated form keys, saving about {} bytes", pool.shared(), pool.bytesSaved());
+
+        return keys;
+    }
+
+    private static PackedStrings normalizeDefinitions(List<LexisWord> words)
+    {
+        PackedStrings.Builder keys = new PackedStrings.Builder();
+
+        for (LexisWord word : words)
+        {
+            List<Definition> definitions = word.getDefinitions();
+
+            if (!Lists.isEmpty(definitions))
+            {
+                for (Definition definition : definitions)
+                {
+                    definition.getTerms().forEach(term -> keys.add(LatinNormalizer.normalize(term)));
+                }
+            }
+
+            keys.endGroup();
+        }
+
+        return keys.build();
+    }
+
+    private static <E extends Enum<E>> Facet<E> supplementalFacet(String parameter,
+                                                                  Class<E> type,
+                                                                  Function<SupplementalInformation, E> extractor)
+    {
+        return Facet.of(parameter, type, COLUMNS.size(), id ->
+        {
+            SupplementalInformation information = COLUMNS.supplementalInformationOf(id);
+            return information != null ? extractor.apply(information) : null;
+        });
+    }
+
+    /**
+     * The orders that search results may be ranked in, by the name given to {@code rank}.
+     */
+    final static Map<String, Ranking> RANKINGS = Collections.singletonMap("frequency", FREQUENCY);
+
+    /**
+     * Reads the boolean queries posted to {@code /search}, binding them to the indexes above.
+     */
+    final static Query.Parser QUERIES = new Query.Parser(WORDS.size(), PREFIXES, CONTAINING, DEFINITIONS, FACETS);
+
+    private static WordType.Types typeOf(int id)
+    {
+        WordType wordType = COLUMNS.wordTypeOf(id);
+        return wordType != null ? wordType.getWordType() : null;
+    }
+
+    private static <E extends Enum<E>, W extends WordType> Facet<E> wordTypeFacet(String parameter,
+                                                                                  Class<E> type,
+                                                                                  Class<W> wordType,
+                                                                                  Function<W, E> extractor)
+    {
+        return Facet.of(parameter, type, COLUMNS.size(), id ->
+        {
+            WordType value = COLUMNS.wordTypeOf(id);
+            return wordType.isInstance(value) ? extractor.apply(wordType.cast(value)) : null;
+        });
+    }
+
+    private static SubstringIndex createSubstringIndex(String[][] formKeys)
+    {
+        SubstringIndex.Engine engine = SubstringIndex.Engine.TRIGRAM;
 
-        URL url;
         try
         {
-            url = Resources.getResource(path);
+            engine = SubstringIndex.Engine.fromSystemProperty();
         }
-        catch (Exception ex)
+        catch (IllegalArgumentException ex)
         {
-            LOG.error("Failed to load URL at {}", path, ex);
+            LOG.warn("Unknown value for {}. Using {} instead.", SubstringIndex.Engine.PROPERTY, engine, ex);
+        }
 
-            Server.AROMA.begin().titled("Operation Failed")
-                .withBody("Could not load file at path {}", path, ex)
-                .withPriority(Priority.HIGH)
-                .send();
+        LOG.info("Using the {} engine for substring searches", engine);
 
-            return "";
+        switch (engine)
+        {
+            case SUFFIX_ARRAY: return SuffixArrayIndex.of(formKeys);
+            default: return TrigramIndex.of(FORM_KEYS);
         }
+    }
+
+    /**
+     * Loads the corpus from its {@linkplain Snapshot snapshot} if there is one made from the current JSON,
+     * and from the JSON otherwise. Without the JSON, the snapshot must be of the version recorded by the build.
+     */
+    private static Corpus loadCorpus()
+    {
+        long begin = System.currentTimeMillis();
+
+        URL url = findJSON();
 
         try
         {
-            return Resources.toString(url, UTF_8);
+            Corpus snapshot = url != null
+                              ? Snapshot.load(null, Snapshot.Fingerprint.of(url))
+                              : Snapshot.load(recordedVersion(), null);
+
+            if (snapshot != null)
+            {
+                long latency = System.currentTimeMillis() - begin;
+                LOG.info("Loaded {} words from snapshot in {}ms", snapshot.words().size(), latency);
+
+                return snapshot;
+            }
+
+            LOG.info("No snapshot found. Reading the corpus from JSON.");
         }
-        catch(IOException ex)
+        catch (IOException ex)
+        {
+            LOG.warn("Ignoring snapshot: {}. Reading the corpus from JSON.", ex.getMessage());
+        }
+
+        if (url == null)
+        {
+            return Corpus.EMPTY;
+        }
+
+        try (InputStream input = url.openStream())
+        {
+            Corpus corpus = Corpus.read(input);
+
+            if (!corpus.failures().isEmpty())
+            {
+                Server.AROMA.begin().titled("Operation Failed")
+                    .withBody("Could not parse all of url {}: {}", url, corpus.failures())
+                    .withPriority(Priority.HIGH)
+                    .send();
+            }
+
+            return corpus;
+        }
+        catch (IOException | JsonParseException ex)
         {
             LOG.error("Failed to load URL at {}", url, ex);
 
-            Server.AROMA.begin().titled("Operation Faile")
+            Server.AROMA.begin().titled("Operation Failed")
                 .withBody("Could not load url {}", url, ex)
                 .withPriority(Priority.HIGH)
                 .send();
 
-            return "";
+            return Corpus.EMPTY;
         }
+    }
 
+    /**
+     * @return The version of the corpus recorded by the build, or null if none can be read.
+     */
+    private static String recordedVersion()
+    {
+        try
+        {
+            return Snapshot.recordedVersion();
+        }
+        catch (IOException ex)
+        {
+            LOG.warn("Ignoring the recorded version of the corpus: {}", ex.getMessage());
+            return null;
+        }
     }
 
-    private static List<LexisWord> loadLexisWords()
+    private static URL findJSON()
     {
-        List<LexisWord> results = Lists.create();
+        String path = "LexisWords.pretty.json";
 
-        JsonElement wordsJson = JSONConvertible.GSON.fromJson(JSON_FILE, JsonElement.class);
+        LOG.debug("Loading JSON at {}", path);
 
-        if (!wordsJson.isJsonArray())
+        try
         {
-            return results;
+            return Resources.getResource(path);
         }
-
-        for (JsonElement element : wordsJson.getAsJsonArray())
+        catch (Exception ex)
         {
-            if (element.isJsonObject())
-            {
-                LexisWord word = LexisWord.fromJSON(element.getAsJsonObject());
+            LOG.error("Failed to load URL at {}", path, ex);
 
-                if (word != null)
-                {
-                    results.add(word);
-                }
-            }
-        }
+            Server.AROMA.begin().titled("Operation Failed")
+                .withBody("Could not load file at path {}", path, ex)
+                .withPriority(Priority.HIGH)
+                .send();
 
-        return results;
+            return null;
+        }
     }
 }
@@ -43,7 +43,7 @@ public final class DictionaryCodes
     /**
      * The Age represents a Word's age and in which time period it was used.
      */
-    static enum Age
+    public static enum Age
     {
         X,
         A,
@@ -83,7 +83,7 @@ public final class DictionaryCodes
     /**
      * The Subject Area represents the discipline in which the word is used, for example, in science, or arts.
      */
-    static enum SubjectArea
+    public static enum SubjectArea
     {
         X,
         A,
@@ -126,7 +126,7 @@ public final class DictionaryCodes
     /**
      * Geographical Area represents a location where the word was commonly used.
      */
-    static enum GeographicalArea
+    public static enum GeographicalArea
     {
         X,
         A,
@@ -177,7 +177,7 @@ public final class DictionaryCodes
      * This code also applies differently to inflections. If there were several matches to an input word, this key may be used to
      * sort the output, or exclude rate interpretations.
      */
-    static enum Frequency
+    public static enum Frequency
     {
         X,
         A,
@@ -217,7 +217,7 @@ public final class DictionaryCodes
     /**
      * The Source of the word is the original Dictionary text where the word's definition and information was procured from.
      */
-    static enum Source
+    public static enum Source
     {
         X,
         A,
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service.words;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import tech.sirwellington.alchemy.annotations.access.NonInstantiable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Generates the regular inflections of a word from its principal parts.
+ * <p>
+ * Nouns are declined from the stem of their genitive singular, according to their {@link Noun.Declension}
+ * and {@link Noun.Gender}. Verbs are conjugated from their infinitive, perfect and supine, according to
+ * their {@link Verb.Conjugation}. Irregular forms are not generated, and other kinds of words only
+ * yield their principal parts.
+ *
+ * @author SirWellington
+ */
+@NonInstantiable
+public final class Inflections
+{
+
+    private static final String[] FIRST_DECLENSION = { "a", "ae", "am", "arum", "is", "as" };
+    private static final String[] SECOND_DECLENSION = { "i", "o", "um", "e", "orum", "is", "os" };
+    private static final String[] SECOND_DECLENSION_NEUTER = { "i", "o", "um", "a", "orum", "is" };
+    private static final String[] THIRD_DECLENSION = { "is", "i", "em", "e", "es", "um", "ium", "ibus" };
+    private static final String[] THIRD_DECLENSION_NEUTER = { "is", "i", "e", "a", "ia", "um", "ium", "ibus" };
+    private static final String[] FOURTH_DECLENSION = { "us", "ui", "u", "um", "uum", "ibus", "ubus" };
+    private static final String[] FOURTH_DECLENSION_NEUTER = { "us", "u", "ua", "uum", "ibus" };
+    private static final String[] FIFTH_DECLENSION = { "es", "ei", "em", "e", "erum", "ebus" };
+
+    private static final String[] FIRST_CONJUGATION =
+    {
+        "o", "as", "at", "amus", "atis", "ant",
+        "abam", "abas", "abat", "abamus", "abatis", "abant",
+        "abo", "abis", "abit", "abimus", "abitis", "abunt",
+        "em", "es", "et", "emus", "etis", "ent",
+        "arem", "ares", "aret", "aremus", "aretis", "arent",
+        "a", "ate", "ato", "atote", "anto",
+        "or", "aris", "atur", "amur", "amini", "antur",
+        "abar", "abaris", "abatur", "abamur", "abamini", "abantur",
+        "abor", "aberis", "abitur", "abimur", "abimini", "abuntur",
+        "er", "eris", "etur", "emur", "emini", "entur",
+        "arer", "areris", "aretur", "aremur", "aremini", "arentur",
+        "are", "ari", "ans", "andi", "ando", "andum"
+    };
+
+    private static final String[] SECOND_CONJUGATION =
+    {
+        "eo", "es", "et", "emus", "etis", "ent",
+        "ebam", "ebas", "ebat", "ebamus", "ebatis", "ebant",
+        "ebo", "ebis", "ebit", "ebimus", "ebitis", "ebunt",
+        "eam", "eas", "eat", "eamus", "eatis", "eant",
+        "erem", "eres", "eret", "eremus", "eretis", "erent",
+        "e", "ete", "eto", "etote", "ento",
+        "eor", "eris", "etur", "emur", "emini", "entur",
+        "ebar", "ebaris", "ebatur", "ebamur", "ebamini", "ebantur",
+        "ebor", "eberis", "ebitur", "ebimur", "ebimini", "ebuntur",
+        "ear", "earis", "eatur", "eamur", "eamini", "eantur",
+        "erer", "ereris", "eretur", "eremur", "eremini", "erentur",
+        "ere", "eri", "ens", "endi", "endo", "endum"
+    };
+
+    private static final String[] THIRD_CONJUGATION =
+    {
+        "o", "is", "it", "imus", "itis", "unt",
+        "ebam", "ebas", "ebat", "ebamus", "ebatis", "ebant",
+        "am", "es", "et", "emus", "etis", "ent",
+        "as", "at", "amus", "atis", "ant",
+        "erem", "eres", "eret", "eremus", "eretis", "erent",
+        "e", "ite", "ito", "itote", "unto",
+        "or", "eris", "itur", "imur", "imini", "untur",
+        "ebar", "ebaris", "ebatur", "ebamur", "ebamini", "ebantur",
+        "ar", "etur", "emur", "emini", "entur",
+        "aris", "atur", "amur", "amini", "antur",
+        "erer", "ereris", "eretur", "eremur", "eremini", "erentur",
+        "ere", "i", "ens", "endi", "endo", "endum"
+    };
+
+    /**
+     * Third conjugation verbs whose first principal part ends in -io, like capio, keep the i in these forms.
+     */
+    private static final String[] THIRD_CONJUGATION_IO =
+    {
+        "io", "iunt",
+        "iebam", "iebas", "iebat", "iebamus", "iebatis", "iebant",
+        "iam", "ies", "iet", "iemus", "ietis", "ient",
+        "ias", "iat", "iamus", "iatis", "iant",
+        "ior", "iuntur", "iebar", "iebatur", "iar", "ietur", "iatur", "iantur",
+        "iens", "iendi", "iendo", "iendum"
+    };
+
+    private static final String[] FOURTH_CONJUGATION =
+    {
+        "io", "is", "it", "imus", "itis", "iunt",
+        "iebam", "iebas", "iebat", "iebamus", "iebatis", "iebant",
+        "iam", "ies", "iet", "iemus", "ietis", "ient",
+        "ias", "iat", "iamus", "iatis", "iant",
+        "irem", "ires", "iret", "iremus", "iretis", "irent",
+        "i", "ite", "ito", "itote", "iunto",
+        "ior", "iris", "itur", "imur", "imini", "iuntur",
+        "iebar", "iebaris", "iebatur", "iebamur", "iebamini", "iebantur",
+        "iar", "ieris", "ietur", "iemur", "iemini", "ientur",
+        "iaris", "iatur", "iamur", "iamini", "iantur",
+        "irer", "ireris", "iretur", "iremur", "iremini", "irentur",
+        "ire", "iri", "iens", "iendi", "iendo", "iendum"
+    };
+
+    private static final String[] PERFECT_SYSTEM =
+    {
+        "i", "isti", "it", "imus", "istis", "erunt", "ere",
+        "eram", "eras", "erat", "eramus", "eratis", "erant",
+        "ero", "eris", "erit", "erimus", "eritis", "erint",
+        "erim",
+        "issem", "isses", "isset", "issemus", "issetis", "issent",
+        "isse"
+    };
+
+    private static final String[] FIRST_AND_SECOND_DECLENSION_ADJECTIVE =
+    {
+        "us", "a", "um", "i", "ae", "o", "am", "e", "os", "as", "orum", "arum", "is"
+    };
+
+    private static final String[] PRESENT_PARTICIPLE = { "is", "i", "em", "e", "es", "ium", "ibus", "ia" };
+
+    private Inflections()
+    {
+    }
+
+    /**
+     * @return The principal parts of the word, followed by every regular inflection that could be generated.
+     */
+    public static Set<String> of(LexisWord word)
+    {
+        checkThat(word).is(notNull());
+
+        Set<String> inflections = new LinkedHashSet<>();
+        List<String> forms = word.getForms();
+
+        if (forms == null)
+        {
+            return inflections;
+        }
+
+        for (String form : forms)
+        {
+            if (isPrincipalPart(form))
+            {
+                inflections.add(form);
+            }
+        }
+
+        WordType wordType = word.getWordType();
+
+        if (wordType instanceof Noun)
+        {
+            declineNoun((Noun) wordType, forms, inflections);
+        }
+        else if (wordType instanceof Verb)
+        {
+            conjugateVerb((Verb) wordType, forms, inflections);
+        }
+
+        return inflections;
+    }
+
+    private static void declineNoun(Noun noun, List<String> forms, Set<String> inflections)
+    {
+        if (noun.getDeclension() == null || forms.size() < 2)
+        {
+            return;
+        }
+
+        String genitive = forms.get(1);
+        boolean isNeuter = noun.getGender() == Noun.Gender.Neuter;
+
+        switch (noun.getDeclension())
+        {
+            case First:
+                addAll(inflections, stem(genitive, "ae"), FIRST_DECLENSION);
+                break;
+            case Second:
+                addAll(inflections, stem(genitive, "i"), isNeuter ? SECOND_DECLENSION_NEUTER : SECOND_DECLENSION);
+                break;
+            case Third:
+                addAll(inflections, stem(genitive, "is"), isNeuter ? THIRD_DECLENSION_NEUTER : THIRD_DECLENSION);
+                break;
+            case Fourth:
+                addAll(inflections, stem(genitive, "us"), isNeuter ? FOURTH_DECLENSION_NEUTER : FOURTH_DECLENSION);
+                break;
+            case Fifth:
+                addAll(inflections, stem(genitive, "ei"), FIFTH_DECLENSION);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void conjugateVerb(Verb verb, List<String> forms, Set<String> inflections)
+    {
+        if (verb.getConjugation() == null || forms.size() < 2)
+        {
+            return;
+        }
+
+        String infinitive = forms.get(1);
+        String stem;
+
+        switch (verb.getConjugation())
+        {
+            case First:
+                stem = presentStem(infinitive, "are", "ari");
+                addAll(inflections, stem, FIRST_CONJUGATION);
+                addAll(inflections, stem, PRESENT_PARTICIPLE, "ant");
+                addAll(inflections, stem, FIRST_AND_SECOND_DECLENSION_ADJECTIVE, "and");
+                break;
+            case Second:
+                stem = presentStem(infinitive, "ere", "eri");
+                addAll(inflections, stem, SECOND_CONJUGATION);
+                addAll(inflections, stem, PRESENT_PARTICIPLE, "ent");
+                addAll(inflections, stem, FIRST_AND_SECOND_DECLENSION_ADJECTIVE, "end");
+                break;
+            case Third:
+                stem = presentStem(infinitive, "ere", "i");
+                addAll(inflections, stem, THIRD_CONJUGATION);
+                addAll(inflections, stem, PRESENT_PARTICIPLE, "ent");
+                addAll(inflections, stem, FIRST_AND_SECOND_DECLENSION_ADJECTIVE, "end");
+
+                if (forms.get(0).endsWith("io"))
+                {
+                    addAll(inflections, stem, THIRD_CONJUGATION_IO);
+                    addAll(inflections, stem, PRESENT_PARTICIPLE, "ient");
+                }
+                break;
+            case Fourth:
+                stem = presentStem(infinitive, "ire", "iri");
+                addAll(inflections, stem, FOURTH_CONJUGATION);
+                addAll(inflections, stem, PRESENT_PARTICIPLE, "ient");
+                addAll(inflections, stem, FIRST_AND_SECOND_DECLENSION_ADJECTIVE, "iend");
+                break;
+            default:
+                return;
+        }
+
+        if (forms.size() > 2)
+        {
+            addAll(inflections, stem(forms.get(2), "i"), PERFECT_SYSTEM);
+        }
+
+        if (forms.size() > 3)
+        {
+            String supine = forms.get(3);
+            String participle = supine.endsWith("us") ? stem(supine, "us") : stem(supine, "um");
+
+            addAll(inflections, participle, FIRST_AND_SECOND_DECLENSION_ADJECTIVE);
+            addAll(inflections, participle, FIRST_AND_SECOND_DECLENSION_ADJECTIVE, "ur");
+        }
+    }
+
+    /**
+     * Deponent verbs only have a passive infinitive.
+     */
+    private static String presentStem(String infinitive, String activeEnding, String passiveEnding)
+    {
+        String stem = stem(infinitive, activeEnding);
+        return stem != null ? stem : stem(infinitive, passiveEnding);
+    }
+
+    /**
+     * @return The form without its ending, or null if the form does not have that ending.
+     */
+    private static String stem(String form, String ending)
+    {
+        if (!isPrincipalPart(form) || !form.endsWith(ending) || form.length() == ending.length())
+        {
+            return null;
+        }
+
+        return form.substring(0, form.length() - ending.length());
+    }
+
+    private static void addAll(Set<String> inflections, String stem, String[] endings)
+    {
+        addAll(inflections, stem, endings, "");
+    }
+
+    private static void addAll(Set<String> inflections, String stem, String[] endings, String infix)
+    {
+        if (stem == null)
+        {
+            return;
+        }
+
+        for (String ending : endings)
+        {
+            inflections.add(stem + infix + ending);
+        }
+    }
+
+    /**
+     * Missing principal parts are recorded with placeholders such as "-" or "zzz".
+     */
+    private static boolean isPrincipalPart(String form)
+    {
+        if (form == null || form.isEmpty() || form.equals("zzz"))
+        {
+            return false;
+        }
+
+        for (int i = 0; i < form.length(); ++i)
+        {
+            if (!Character.isLetter(form.charAt(i)))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+}
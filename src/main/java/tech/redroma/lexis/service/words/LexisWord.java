@@ -64,6 +64,23 @@ public final class LexisWord implements JSONConvertible
         this.supplementalInformation = supplementalInformation;
     }
 
+    /**
+     * Unlike the constructor, accepts the missing parts that a word may have been loaded without.
+     */
+    static LexisWord of(List<String> forms,
+                        List<Definition> definitions,
+                        WordType wordType,
+                        SupplementalInformation supplementalInformation)
+    {
+        LexisWord word = new LexisWord();
+        word.forms = forms;
+        word.definitions = definitions;
+        word.wordType = wordType;
+        word.supplementalInformation = supplementalInformation;
+
+        return word;
+    }
+
     @Override
     public JsonObject asJSON()
     {
@@ -32,7 +32,7 @@ import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.*
  * @author SirWellington
  */
 @Pojo
-final class Noun extends WordType
+public final class Noun extends WordType
 {
 
     private final static Logger LOG = LoggerFactory.getLogger(Noun.class);
@@ -147,7 +147,7 @@ final class Noun extends WordType
         return "Noun{" + "declension=" + declension + ", gender=" + gender + '}';
     }
 
-    static enum Gender
+    public static enum Gender
     {
         Male,
         Female,
@@ -178,7 +178,7 @@ final class Noun extends WordType
         }
     }
 
-    static enum Declension
+    public static enum Declension
     {
         First,
         Second,
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service.words;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Groups of strings, such as the forms of each word, packed into a single array of characters.
+ * <p>
+ * String {@code i} spans {@code offsets[i]} up to {@code offsets[i + 1]} of the characters, and group
+ * {@code g} holds strings {@code starts[g]} up to {@code starts[g + 1]}. Searching the strings of a group
+ * reads consecutive memory, without following a reference for each string or creating any objects.
+ *
+ * @author SirWellington
+ */
+public final class PackedStrings
+{
+
+    private final char[] chars;
+    private final int[] offsets;
+    private final int[] starts;
+
+    private PackedStrings(char[] chars, int[] offsets, int[] starts)
+    {
+        this.chars = chars;
+        this.offsets = offsets;
+        this.starts = starts;
+    }
+
+    /**
+     * @param groups The strings of each group, indexed by group.
+     */
+    public static PackedStrings of(String[][] groups)
+    {
+        checkThat(groups).is(notNull());
+
+        Builder builder = new Builder();
+
+        for (String[] group : groups)
+        {
+            builder.addGroup(Arrays.asList(group));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * @return The number of groups.
+     */
+    public int size()
+    {
+        return starts.length - 1;
+    }
+
+    /**
+     * @return The number of strings in the group.
+     */
+    public int sizeOf(int group)
+    {
+        return starts[group + 1] - starts[group];
+    }
+
+    /**
+     * @return A new copy of string {@code index} of the group.
+     */
+    public String get(int group, int index)
+    {
+        int string = starts[group] + index;
+        return new String(chars, offsets[string], offsets[string + 1] - offsets[string]);
+    }
+
+    /**
+     * @return The length of string {@code index} of the group, without creating it.
+     */
+    public int lengthOf(int group, int index)
+    {
+        int string = starts[group] + index;
+        return offsets[string + 1] - offsets[string];
+    }
+
+    /**
+     * @return New copies of the strings of the group.
+     */
+    public String[] toArray(int group)
+    {
+        String[] strings = new String[sizeOf(group)];
+
+        for (int i = 0; i < strings.length; ++i)
+        {
+            strings[i] = get(group, i);
+        }
+
+        return strings;
+    }
+
+    /**
+     * @return New copies of the strings of every group, in the layout given to {@link #of(String[][])}.
+     */
+    public String[][] toArrays()
+    {
+        String[][] groups = new String[size()][];
+
+        for (int group = 0; group < groups.length; ++group)
+        {
+            groups[group] = toArray(group);
+        }
+
+        return groups;
+    }
+
+    /**
+     * @return Whether any string of the group contains {@code key}.
+     */
+    public boolean anyContains(int group, String key)
+    {
+        checkThat(key).is(notNull());
+
+        for (int string = starts[group]; string < starts[group + 1]; ++string)
+        {
+            if (contains(offsets[string], offsets[string + 1], key))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean contains(int begin, int end, String key)
+    {
+        int length = key.length();
+
+        if (length == 0)
+        {
+            return true;
+        }
+
+        char first = key.charAt(0);
+
+        for (int i = begin; i + length <= end; ++i)
+        {
+            if (chars[i] != first)
+            {
+                continue;
+            }
+
+            int matched = 1;
+            while (matched < length && chars[i + matched] == key.charAt(matched))
+            {
+                ++matched;
+            }
+
+            if (matched == length)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public long estimatedSizeInBytes()
+    {
+        return 2L * chars.length + 4L * offsets.length + 4L * starts.length;
+    }
+
+    /**
+     * Packs strings one group at a time.
+     */
+    public static final class Builder
+    {
+
+        private char[] chars = new char[1024];
+        private int[] offsets = new int[256];
+        private int[] starts = new int[256];
+
+        private int charCount;
+        private int stringCount;
+        private int groupCount;
+
+        public Builder addGroup(Collection<String> strings)
+        {
+            checkThat(strings).is(notNull());
+
+            for (String string : strings)
+            {
+                add(string);
+            }
+
+            return endGroup();
+        }
+
+        /**
+         * Adds a string to the group being built.
+         */
+        public Builder add(String string)
+        {
+            checkThat(string).is(notNull());
+
+            if (charCount + string.length() > chars.length)
+            {
+                chars = Arrays.copyOf(chars, Math.max(2 * chars.length, charCount + string.length()));
+            }
+
+            string.getChars(0, string.length(), chars, charCount);
+            charCount += string.length();
+
+            if (stringCount + 1 == offsets.length)
+            {
+                offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+            }
+
+            offsets[++stringCount] = charCount;
+
+            return this;
+        }
+
+        /**
+         * Ends the group being built, which may be empty.
+         */
+        public Builder endGroup()
+        {
+            if (groupCount + 1 == starts.length)
+            {
+                starts = Arrays.copyOf(starts, 2 * starts.length);
+            }
+
+            starts[++groupCount] = stringCount;
+
+            return this;
+        }
+
+        public PackedStrings build()
+        {
+            return new PackedStrings(Arrays.copyOf(chars, charCount),
+                                     Arrays.copyOf(offsets, stringCount + 1),
+                                     Arrays.copyOf(starts, groupCount + 1));
+        }
+    }
+
+}
@@ -0,0 +1,422 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service.words;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.redroma.lexis.service.words.DictionaryCodes.*;
+import tech.sirwellington.alchemy.annotations.access.NonInstantiable;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Encodes a list of words in a compact binary form, and decodes them again.
+ * <p>
+ * Every distinct form and definition term is stored once, in a table of UTF-8 strings. Each word then
+ * takes one {@code long} of codes, one byte of flags, and the indexes of its strings, which are located
+ * through arrays of offsets. All numbers are big-endian, as written by {@link DataOutput}.
+ * <p>
+ * The codes hold one byte each for the word type, the two fields of its grammar, and the five fields of
+ * its supplemental information. A byte is the ordinal of the constant plus one, or zero if there is none.
+ * Decoding a word yields one equal to the word that was encoded, including the missing parts
+ * of words that were only partly loaded from JSON. Decoded words share the strings of the table.
+ *
+ * @author SirWellington
+ */
+@NonInstantiable
+public final class PackedWords
+{
+
+    static final int FORMS_MISSING = 1;
+    static final int DEFINITIONS_MISSING = 1 << 1;
+    static final int SUPPLEMENTAL_INFORMATION_MISSING = 1 << 2;
+
+    private static final WordType.Types[] TYPES = WordType.Types.values();
+    private static final Noun.Declension[] DECLENSIONS = Noun.Declension.values();
+    private static final Noun.Gender[] GENDERS = Noun.Gender.values();
+    private static final Verb.Conjugation[] CONJUGATIONS = Verb.Conjugation.values();
+    private static final Verb.Type[] VERB_TYPES = Verb.Type.values();
+    private static final Preposition.CaseType[] CASE_TYPES = Preposition.CaseType.values();
+    private static final Age[] AGES = Age.values();
+    private static final SubjectArea[] SUBJECT_AREAS = SubjectArea.values();
+    private static final GeographicalArea[] GEOGRAPHICAL_AREAS = GeographicalArea.values();
+    private static final Frequency[] FREQUENCIES = Frequency.values();
+    private static final Source[] SOURCES = Source.values();
+
+    private PackedWords()
+    {
+    }
+
+    public static void write(List<LexisWord> words, DataOutput output) throws IOException
+    {
+        checkThat(words, output).are(notNull());
+
+        Map<String, Integer> strings = new LinkedHashMap<>();
+
+        int wordCount = words.size();
+        long[] codes = new long[wordCount];
+        byte[] flags = new byte[wordCount];
+        int[] formStarts = new int[wordCount + 1];
+        int[] definitionStarts = new int[wordCount + 1];
+
+        List<Integer> forms = Lists.create();
+        List<Integer> termStarts = Lists.create();
+        List<Integer> terms = Lists.create();
+
+        for (int id = 0; id < wordCount; ++id)
+        {
+            LexisWord word = words.get(id);
+
+            codes[id] = codesOf(word);
+            flags[id] = flagsOf(word);
+
+            for (String form : listOrEmpty(word.getForms()))
+            {
+                forms.add(idOf(form, strings));
+            }
+
+            for (Definition definition : listOrEmpty(word.getDefinitions()))
+            {
+                termStarts.add(terms.size());
+
+                for (String term : definition.getTerms())
+                {
+                    terms.add(idOf(term, strings));
+                }
+            }
+
+            formStarts[id + 1] = forms.size();
+            definitionStarts[id + 1] = termStarts.size();
+        }
+
+        termStarts.add(terms.size());
+
+        writeStrings(strings.keySet(), output);
+
+        output.writeInt(wordCount);
+
+        for (long code : codes)
+        {
+            output.writeLong(code);
+        }
+
+        output.write(flags);
+
+        writeInts(formStarts, output);
+        writeInts(forms, output);
+        writeInts(definitionStarts, output);
+        writeInts(termStarts, output);
+        writeInts(terms, output);
+    }
+
+    /**
+     * Decodes the words starting at the position of the buffer, leaving it just past them.
+     *
+     * @throws IllegalArgumentException If the buffer does not hold words written by {@link #write(List, DataOutput)}.
+     */
+    public static List<LexisWord> read(ByteBuffer buffer) throws IllegalArgumentException
+    {
+        checkThat(buffer).is(notNull());
+
+        try
+        {
+            String[] strings = readStrings(buffer);
+
+            int wordCount = buffer.getInt();
+            long[] codes = new long[wordCount];
+
+            for (int id = 0; id < wordCount; ++id)
+            {
+                codes[id] = buffer.getLong();
+            }
+
+            byte[] flags = new byte[wordCount];
+            buffer.get(flags);
+
+            int[] formStarts = readInts(buffer, wordCount + 1);
+            int[] forms = readInts(buffer, formStarts[wordCount]);
+            int[] definitionStarts = readInts(buffer, wordCount + 1);
+            int[] termStarts = readInts(buffer, definitionStarts[wordCount] + 1);
+            int[] terms = readInts(buffer, termStarts[termStarts.length - 1]);
+
+            List<LexisWord> words = new ArrayList<>(wordCount);
+
+            for (int id = 0; id < wordCount; ++id)
+            {
+                List<String> wordForms = null;
+
+                if ((flags[id] & FORMS_MISSING) == 0)
+                {
+                    wordForms = new ArrayList<>(formStarts[id + 1] - formStarts[id]);
+
+                    for (int i = formStarts[id]; i < formStarts[id + 1]; ++i)
+                    {
+                        wordForms.add(strings[forms[i]]);
+                    }
+                }
+
+                List<Definition> definitions = null;
+
+                if ((flags[id] & DEFINITIONS_MISSING) == 0)
+                {
+                    definitions = new ArrayList<>(definitionStarts[id + 1] - definitionStarts[id]);
+
+                    for (int i = definitionStarts[id]; i < definitionStarts[id + 1]; ++i)
+                    {
+                        List<String> definitionTerms = new ArrayList<>(termStarts[i + 1] - termStarts[i]);
+
+                        for (int j = termStarts[i]; j < termStarts[i + 1]; ++j)
+                        {
+                            definitionTerms.add(strings[terms[j]]);
+                        }
+
+                        definitions.add(new Definition(definitionTerms));
+                    }
+                }
+
+                SupplementalInformation information = (flags[id] & SUPPLEMENTAL_INFORMATION_MISSING) == 0
+                                                      ? supplementalInformationOf(codes[id])
+                                                      : null;
+
+                words.add(LexisWord.of(wordForms, definitions, wordTypeOf(codes[id]), information));
+            }
+
+            return words;
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException ex)
+        {
+            throw new IllegalArgumentException("Malformed words", ex);
+        }
+    }
+
+    static long codesOf(LexisWord word)
+    {
+        long codes = 0;
+        WordType wordType = word.getWordType();
+
+        if (wordType != null)
+        {
+            codes |= codeOf(wordType.getWordType());
+
+            if (wordType instanceof Noun)
+            {
+                Noun noun = (Noun) wordType;
+                codes |= codeOf(noun.getDeclension()) << 8 | codeOf(noun.getGender()) << 16;
+            }
+            else if (wordType instanceof Verb)
+            {
+                Verb verb = (Verb) wordType;
+                codes |= codeOf(verb.getConjugation()) << 8 | codeOf(verb.getVerbType()) << 16;
+            }
+            else if (wordType instanceof Preposition)
+            {
+                codes |= codeOf(((Preposition) wordType).getCaseType()) << 8;
+            }
+        }
+
+        SupplementalInformation information = word.getSupplementalInformation();
+
+        if (information != null)
+        {
+            codes |= codeOf(information.getAge()) << 24 |
+                     codeOf(information.getSubjectArea()) << 32 |
+                     codeOf(information.getGeographicalArea()) << 40 |
+                     codeOf(information.getFrequency()) << 48 |
+                     codeOf(information.getSource()) << 56;
+        }
+
+        return codes;
+    }
+
+    static byte flagsOf(LexisWord word)
+    {
+        int flags = 0;
+
+        if (word.getForms() == null)
+        {
+            flags |= FORMS_MISSING;
+        }
+
+        if (word.getDefinitions() == null)
+        {
+            flags |= DEFINITIONS_MISSING;
+        }
+
+        if (word.getSupplementalInformation() == null)
+        {
+            flags |= SUPPLEMENTAL_INFORMATION_MISSING;
+        }
+
+        return (byte) flags;
+    }
+
+    private static long codeOf(Enum<?> constant)
+    {
+        return constant != null ? constant.ordinal() + 1 : 0;
+    }
+
+    private static <E> E constantAt(E[] constants, long codes, int shift)
+    {
+        int code = (int) (codes >>> shift) & 0xFF;
+        return code != 0 ? constants[code - 1] : null;
+    }
+
+    /**
+     * Words loaded from JSON have either all the fields of their grammar, or none of them.
+     */
+    static WordType wordTypeOf(long codes)
+    {
+        WordType.Types type = constantAt(TYPES, codes, 0);
+
+        if (type == null)
+        {
+            return null;
+        }
+
+        switch (type)
+        {
+            case Noun:
+            {
+                Noun.Declension declension = constantAt(DECLENSIONS, codes, 8);
+                Noun.Gender gender = constantAt(GENDERS, codes, 16);
+                return declension != null && gender != null ? new Noun(declension, gender) : new Noun();
+            }
+            case Verb:
+            {
+                Verb.Conjugation conjugation = constantAt(CONJUGATIONS, codes, 8);
+                Verb.Type verbType = constantAt(VERB_TYPES, codes, 16);
+                return conjugation != null && verbType != null ? new Verb(conjugation, verbType) : new Verb();
+            }
+            case Preposition:
+            {
+                Preposition.CaseType caseType = constantAt(CASE_TYPES, codes, 8);
+                return caseType != null ? new Preposition(caseType) : new Preposition();
+            }
+            default:
+                return WordType.of(type);
+        }
+    }
+
+    /**
+     * Words loaded from JSON have either all the supplemental information, or none of it.
+     */
+    static SupplementalInformation supplementalInformationOf(long codes)
+    {
+        Age age = constantAt(AGES, codes, 24);
+        SubjectArea subjectArea = constantAt(SUBJECT_AREAS, codes, 32);
+        GeographicalArea geographicalArea = constantAt(GEOGRAPHICAL_AREAS, codes, 40);
+        Frequency frequency = constantAt(FREQUENCIES, codes, 48);
+        Source source = constantAt(SOURCES, codes, 56);
+
+        if (age == null || subjectArea == null || geographicalArea == null || frequency == null || source == null)
+        {
+            return new SupplementalInformation();
+        }
+
+        return new SupplementalInformation(age, subjectArea, geographicalArea, frequency, source);
+    }
+
+    private static int idOf(String string, Map<String, Integer> strings)
+    {
+        Integer id = strings.get(string);
+
+        if (id == null)
+        {
+            id = strings.size();
+            strings.put(string, id);
+        }
+
+        return id;
+    }
+
+    private static void writeStrings(Collection<String> strings, DataOutput output) throws IOException
+    {
+        List<byte[]> encoded = Lists.create();
+        int[] offsets = new int[strings.size() + 1];
+
+        for (String string : strings)
+        {
+            byte[] bytes = string.getBytes(UTF_8);
+            offsets[encoded.size() + 1] = offsets[encoded.size()] + bytes.length;
+            encoded.add(bytes);
+        }
+
+        output.writeInt(strings.size());
+        writeInts(offsets, output);
+
+        for (byte[] bytes : encoded)
+        {
+            output.write(bytes);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer buffer)
+    {
+        int count = buffer.getInt();
+        int[] offsets = readInts(buffer, count + 1);
+
+        byte[] bytes = new byte[offsets[count]];
+        buffer.get(bytes);
+
+        String[] strings = new String[count];
+
+        for (int i = 0; i < count; ++i)
+        {
+            strings[i] = new String(bytes, offsets[i], offsets[i + 1] - offsets[i], UTF_8);
+        }
+
+        return strings;
+    }
+
+    private static void writeInts(int[] values, DataOutput output) throws IOException
+    {
+        for (int value : values)
+        {
+            output.writeInt(value);
+        }
+    }
+
+    private static void writeInts(List<Integer> values, DataOutput output) throws IOException
+    {
+        for (int value : values)
+        {
+            output.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count)
+    {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+
+        return values;
+    }
+
+    private static <T> List<T> listOrEmpty(List<T> list)
+    {
+        return list != null ? list : Collections.emptyList();
+    }
+
+}
@@ -32,7 +32,7 @@ import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.*
  * @author SirWellington
  */
 @Pojo
-final class Preposition extends WordType
+public final class Preposition extends WordType
 {
 
     private final static Logger LOG = LoggerFactory.getLogger(Preposition.class);
@@ -126,7 +126,7 @@ final class Preposition extends WordType
         return "Preposition{" + "caseType=" + caseType + '}';
     }
 
-    static enum CaseType
+    public static enum CaseType
     {
         Nominative,
         Genitive,
@@ -32,7 +32,7 @@ import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.*
  * @author SirWellington
  */
 @Pojo
-final class Verb extends WordType
+public final class Verb extends WordType
 {
 
     private final static Logger LOG = LoggerFactory.getLogger(Verb.class);
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service.words;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+import static tech.redroma.lexis.service.words.PackedWords.*;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Holds a list of words as columns of arrays, rather than as a {@link LexisWord} object per word.
+ * <p>
+ * The forms of every word are {@linkplain PackedStrings packed} into one array of characters, and so are
+ * the terms of every definition. The word type, its grammar, and the supplemental information of a word are
+ * packed into one {@code long} of codes, laid out as in {@link PackedWords}. Each distinct value is decoded
+ * once, into a dictionary sorted by its codes, so reading the value of a word is a binary search over
+ * a {@code long[]} that creates no objects.
+ * <p>
+ * A {@link LexisWord} is only created when one is asked for, and is equal to the word that was stored.
+ *
+ * @author SirWellington
+ */
+public final class WordColumns
+{
+
+    private static final long WORD_TYPE_MASK = 0xFFFFFF;
+    private static final int SUPPLEMENTAL_INFORMATION_SHIFT = 24;
+
+    private final PackedStrings forms;
+    private final PackedStrings terms;
+    /** The definitions of word {@code id} are the groups of terms from definitionStarts[id] up to definitionStarts[id + 1]. */
+    private final int[] definitionStarts;
+    private final long[] codes;
+    private final byte[] flags;
+
+    private final Dictionary<WordType> wordTypes;
+    private final Dictionary<SupplementalInformation> supplementalInformation;
+
+    private final List<LexisWord> list = new WordList();
+
+    private WordColumns(PackedStrings forms,
+                        PackedStrings terms,
+                        int[] definitionStarts,
+                        long[] codes,
+                        byte[] flags,
+                        Dictionary<WordType> wordTypes,
+                        Dictionary<SupplementalInformation> supplementalInformation)
+    {
+        this.forms = forms;
+        this.terms = terms;
+        this.definitionStarts = definitionStarts;
+        this.codes = codes;
+        this.flags = flags;
+        this.wordTypes = wordTypes;
+        this.supplementalInformation = supplementalInformation;
+    }
+
+    public static WordColumns of(List<LexisWord> words)
+    {
+        checkThat(words).is(notNull());
+
+        PackedStrings.Builder forms = new PackedStrings.Builder();
+        PackedStrings.Builder terms = new PackedStrings.Builder();
+        int[] definitionStarts = new int[words.size() + 1];
+        long[] codes = new long[words.size()];
+        byte[] flags = new byte[words.size()];
+
+        Map<Long, WordType> wordTypes = new TreeMap<>();
+        Map<Long, SupplementalInformation> supplementalInformation = new TreeMap<>();
+        int definitionCount = 0;
+
+        for (int id = 0; id < words.size(); ++id)
+        {
+            LexisWord word = words.get(id);
+
+            forms.addGroup(listOrEmpty(word.getForms()));
+
+            for (Definition definition : listOrEmpty(word.getDefinitions()))
+            {
+                terms.addGroup(definition.getTerms());
+                ++definitionCount;
+            }
+
+            definitionStarts[id + 1] = definitionCount;
+            codes[id] = codesOf(word);
+            flags[id] = flagsOf(word);
+
+            long wordCodes = codes[id];
+            wordTypes.computeIfAbsent(wordCodes & WORD_TYPE_MASK, key -> PackedWords.wordTypeOf(wordCodes));
+            supplementalInformation.computeIfAbsent(wordCodes >>> SUPPLEMENTAL_INFORMATION_SHIFT,
+                                                    key -> PackedWords.supplementalInformationOf(wordCodes));
+        }
+
+        return new WordColumns(forms.build(),
+                               terms.build(),
+                               definitionStarts,
+                               codes,
+                               flags,
+                               new Dictionary<>(wordTypes, WordType[]::new),
+                               new Dictionary<>(supplementalInformation, SupplementalInformation[]::new));
+    }
+
+    public int size()
+    {
+        return codes.length;
+    }
+
+    /**
+     * @return A new word, equal to the word stored at {@code id}.
+     */
+    public LexisWord get(int id)
+    {
+        List<String> wordForms = null;
+
+        if ((flags[id] & FORMS_MISSING) == 0)
+        {
+            wordForms = Arrays.asList(forms.toArray(id));
+        }
+
+        List<Definition> definitions = null;
+
+        if ((flags[id] & DEFINITIONS_MISSING) == 0)
+        {
+            definitions = new ArrayList<>(definitionStarts[id + 1] - definitionStarts[id]);
+
+            for (int definition = definitionStarts[id]; definition < definitionStarts[id + 1]; ++definition)
+            {
+                definitions.add(new Definition(Arrays.asList(terms.toArray(definition))));
+            }
+        }
+
+        return LexisWord.of(wordForms, definitions, wordTypeOf(id), supplementalInformationOf(id));
+    }
+
+    /**
+     * @return A view of the words, which creates each word as it is read.
+     */
+    public List<LexisWord> asList()
+    {
+        return list;
+    }
+
+    /**
+     * @return The forms of every word, grouped by word id.
+     */
+    public PackedStrings forms()
+    {
+        return forms;
+    }
+
+    /**
+     * @return The shared instance of the word type of the word, or null if it has none.
+     */
+    public WordType wordTypeOf(int id)
+    {
+        return wordTypes.get(codes[id] & WORD_TYPE_MASK);
+    }
+
+    /**
+     * @return The shared instance of the supplemental information of the word, or null if it has none.
+     */
+    public SupplementalInformation supplementalInformationOf(int id)
+    {
+        if ((flags[id] & SUPPLEMENTAL_INFORMATION_MISSING) != 0)
+        {
+            return null;
+        }
+
+        return supplementalInformation.get(codes[id] >>> SUPPLEMENTAL_INFORMATION_SHIFT);
+    }
+
+    public long estimatedSizeInBytes()
+    {
+        return forms.estimatedSizeInBytes() +
+               terms.estimatedSizeInBytes() +
+               4L * definitionStarts.length +
+               8L * codes.length +
+               flags.length;
+    }
+
+    /**
+     * The distinct values of one part of the codes, sorted by that part.
+     */
+    private static final class Dictionary<T>
+    {
+
+        private final long[] keys;
+        private final T[] values;
+
+        Dictionary(Map<Long, T> sorted, IntFunction<T[]> arrayOf)
+        {
+            keys = new long[sorted.size()];
+            values = arrayOf.apply(sorted.size());
+
+            int i = 0;
+            for (Map.Entry<Long, T> entry : sorted.entrySet())
+            {
+                keys[i] = entry.getKey();
+                values[i++] = entry.getValue();
+            }
+        }
+
+        T get(long key)
+        {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? values[index] : null;
+        }
+    }
+
+    private static <T> List<T> listOrEmpty(List<T> list)
+    {
+        return list != null ? list : Collections.emptyList();
+    }
+
+    private final class WordList extends AbstractList<LexisWord> implements RandomAccess
+    {
+
+        @Override
+        public LexisWord get(int index)
+        {
+            if (index < 0 || index >= size())
+            {
+                throw new IndexOutOfBoundsException("No word at " + index);
+            }
+
+            return WordColumns.this.get(index);
+        }
+
+        @Override
+        public int size()
+        {
+            return WordColumns.this.size();
+        }
+    }
+
+}
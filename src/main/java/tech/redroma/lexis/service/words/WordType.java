@@ -68,17 +68,6 @@ public class WordType implements JSONConvertible
 
             WordType.Types wordType = WordType.Types.valueOf(wordTypeEnum);
 
-            switch (wordType)
-            {
-                case Adjective: return ADJECTIVE;
-                case Adverb: return ADVERB;
-                case Conjunction: return CONJUNCTION;
-                case Interjection: return INTERJECTION;
-                case Numeral: return NUMERAL;
-                case PersonalPronoun: return PERSONAL_PRONOUN;
-                case Pronoun: return PRONOUN;
-            }
-
             if (wordType == Types.Noun)
             {
                 return Noun.fromJSON(object);
@@ -94,9 +83,7 @@ public class WordType implements JSONConvertible
                 return Preposition.fromJSON(object);
             }
 
-            LOG.warn("Failed to determine the WordType from JSON: {}", object);
-
-            return null;
+            return of(wordType);
 
         }
         catch (Exception ex)
@@ -106,6 +93,26 @@ public class WordType implements JSONConvertible
         }
     }
 
+    /**
+     * @return The shared instance for a type of word that has no grammar of its own.
+     */
+    static WordType of(Types type)
+    {
+        checkThat(type).is(notNull());
+
+        switch (type)
+        {
+            case Adjective: return ADJECTIVE;
+            case Adverb: return ADVERB;
+            case Conjunction: return CONJUNCTION;
+            case Interjection: return INTERJECTION;
+            case Numeral: return NUMERAL;
+            case PersonalPronoun: return PERSONAL_PRONOUN;
+            case Pronoun: return PRONOUN;
+            default: return new WordType(type);
+        }
+    }
+
     @Override
     public JsonObject asJSON()
     {
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class ContentNegotiationTest
+{
+
+    @Test
+    public void testAcceptsGzip()
+    {
+        assertThat(ContentNegotiation.acceptsGzip("gzip"), is(true));
+        assertThat(ContentNegotiation.acceptsGzip("gzip, deflate, br"), is(true));
+        assertThat(ContentNegotiation.acceptsGzip("deflate;q=1.0, GZIP;q=0.5"), is(true));
+        assertThat(ContentNegotiation.acceptsGzip("*"), is(true));
+    }
+
+    @Test
+    public void testAcceptsGzipWhenRefused()
+    {
+        assertThat(ContentNegotiation.acceptsGzip(null), is(false));
+        assertThat(ContentNegotiation.acceptsGzip(""), is(false));
+        assertThat(ContentNegotiation.acceptsGzip("identity"), is(false));
+        assertThat(ContentNegotiation.acceptsGzip("gzip;q=0"), is(false));
+        assertThat(ContentNegotiation.acceptsGzip("*, gzip;q=0"), is(false));
+        assertThat(ContentNegotiation.acceptsGzip("gzip;q=high"), is(false));
+    }
+
+    @Test
+    public void testStrongETag()
+    {
+        assertThat(ContentNegotiation.strongETag("3f2a9c"), is("\"3f2a9c\""));
+    }
+
+    @Test
+    public void testMatchesETag()
+    {
+        String etag = ContentNegotiation.strongETag("3f2a9c");
+
+        assertThat(ContentNegotiation.matchesETag("\"3f2a9c\"", etag), is(true));
+        assertThat(ContentNegotiation.matchesETag("\"a\", \"3f2a9c\"", etag), is(true));
+        assertThat(ContentNegotiation.matchesETag("W/\"3f2a9c\"", etag), is(true));
+        assertThat(ContentNegotiation.matchesETag("*", etag), is(true));
+    }
+
+    @Test
+    public void testMatchesETagWhenStale()
+    {
+        String etag = ContentNegotiation.strongETag("3f2a9c");
+
+        assertThat(ContentNegotiation.matchesETag(null, etag), is(false));
+        assertThat(ContentNegotiation.matchesETag("\"3f2a9b\"", etag), is(false));
+        assertThat(ContentNegotiation.matchesETag("\"3f2a9c-gzip\"", etag), is(false));
+    }
+
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import tech.redroma.lexis.service.words.WordColumns;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Measures the corpus in each of the forms the service holds it in: its size as JSON and as a snapshot, how long
+ * each takes to load, how long checking a snapshot against the JSON takes, and roughly how much heap the words
+ * take as objects and as columns.
+ * <p>
+ * Run it against the real corpus, or against a synthetic one with the given number of words:
+ * <pre>
+ * mvn -B test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=tech.redroma.lexis.service.CorpusBenchmark \
+ *     -Dexec.args="src/main/resources/LexisWords.pretty.json"
+ *
+ * mvn -B test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=tech.redroma.lexis.service.CorpusBenchmark \
+ *     -Dexec.args="--synthetic 40000"
+ * </pre>
+ * The synthetic corpus is random, but seeded, so it is the same on every run. Times are the best of several warm
+ * runs. Heap sizes are the growth of the used heap across full collections, so they are only approximate.
+ *
+ * @author SirWellington
+ */
+public final class CorpusBenchmark
+{
+
+    private static final String SYNTHETIC = "--synthetic";
+    private static final int WARMUPS = 3;
+    private static final int RUNS = 5;
+
+    private static final String[] SYLLABLES =
+    {
+        "a", "am", "ar", "be", "ca", "cor", "de", "do", "fe", "fi", "ge", "ia", "iu", "la", "lu", "ma", "mi", "mo",
+        "na", "no", "pa", "pu", "qua", "re", "ri", "sa", "se", "ta", "te", "ti", "tu", "ve", "vi", "vo", "ul", "ae"
+    };
+
+    private static final String[] ENGLISH = ("love girl boy war city road house water fire king queen sword shield " +
+                                             "to carry lead be have make do go come see hear say give take the of a " +
+                                             "an with in on from").split(" ");
+
+    private static final String[][] DECLENSIONS =
+    {
+        { "First", "a", "ae" },
+        { "Second", "us", "i" },
+        { "Third", "x", "is" },
+        { "Fourth", "us", "us" },
+        { "Fifth", "es", "ei" }
+    };
+
+    private static final String[][] CONJUGATIONS =
+    {
+        { "First", "o", "are", "avi", "atus" },
+        { "Second", "eo", "ere", "ui", "itus" },
+        { "Third", "o", "ere", "i", "tus" },
+        { "Fourth", "io", "ire", "ivi", "itus" }
+    };
+
+    private static final String[] WORD_TYPES =
+    {
+        "Noun", "Noun", "Verb", "Adjective", "Adverb", "Preposition", "Conjunction"
+    };
+
+    private static volatile Object retained;
+
+    private CorpusBenchmark()
+    {
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        Path json;
+
+        if (args.length == 2 && SYNTHETIC.equals(args[0]))
+        {
+            json = Files.createTempFile("LexisWords", ".json");
+            json.toFile().deleteOnExit();
+            writeSyntheticCorpus(Integer.parseInt(args[1]), json);
+        }
+        else if (args.length == 1)
+        {
+            json = Paths.get(args[0]);
+        }
+        else
+        {
+            throw new IllegalArgumentException("Usage: CorpusBenchmark <corpus JSON> | --synthetic <words>");
+        }
+
+        Corpus corpus = read(json);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Snapshot.write(corpus, fingerprintOf(json), output);
+        byte[] snapshot = output.toByteArray();
+
+        report("words", corpus.words().size());
+        report("JSON bytes", Files.size(json));
+        report("snapshot bytes", snapshot.length);
+        report("fingerprint JSON (ms)", bestOf(() -> fingerprintOf(json)));
+        report("parse JSON (ms)", bestOf(() -> read(json)));
+        report("decode snapshot (ms)", bestOf(() -> Snapshot.read(ByteBuffer.wrap(snapshot), corpus.version(), null)));
+        report("words as objects (bytes)", retainedBy(() -> Snapshot.read(ByteBuffer.wrap(snapshot), null, null).words()));
+        report("words as columns (bytes)", retainedBy(() -> WordColumns.of(corpus.words())));
+    }
+
+    private static Corpus read(Path json) throws IOException
+    {
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(json)))
+        {
+            return Corpus.read(input);
+        }
+    }
+
+    private static Snapshot.Fingerprint fingerprintOf(Path json) throws IOException
+    {
+        return Snapshot.Fingerprint.of(json.toUri().toURL());
+    }
+
+    private static long bestOf(Callable<?> task) throws Exception
+    {
+        for (int i = 0; i < WARMUPS; ++i)
+        {
+            task.call();
+        }
+
+        long best = Long.MAX_VALUE;
+
+        for (int i = 0; i < RUNS; ++i)
+        {
+            long begin = System.nanoTime();
+            task.call();
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+
+        return best / 1_000_000;
+    }
+
+    private static long retainedBy(Callable<?> task) throws Exception
+    {
+        long before = usedHeap();
+        retained = task.call();
+        long after = usedHeap();
+        retained = null;
+
+        return after - before;
+    }
+
+    private static long usedHeap()
+    {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; ++i)
+        {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void report(String measure, long value)
+    {
+        System.out.printf("%-26s %,14d%n", measure, value);
+    }
+
+    private static void writeSyntheticCorpus(int size, Path json) throws IOException
+    {
+        Random random = new Random(7);
+        JsonArray words = new JsonArray();
+
+        for (int i = 0; i < size; ++i)
+        {
+            words.add(syntheticWord(random));
+        }
+
+        try (Writer writer = Files.newBufferedWriter(json, UTF_8))
+        {
+            new GsonBuilder().setPrettyPrinting().create().toJson(words, writer);
+        }
+    }
+
+    private static JsonObject syntheticWord(Random random)
+    {
+        StringBuilder stem = new StringBuilder();
+        for (int i = 1 + random.nextInt(3); i > 0; --i)
+        {
+            stem.append(pick(random, SYLLABLES));
+        }
+        if (random.nextDouble() < 0.05)
+        {
+            stem.setCharAt(0, Character.toUpperCase(stem.charAt(0)));
+        }
+
+        String type = pick(random, WORD_TYPES);
+        JsonArray forms = new JsonArray();
+        JsonObject wordType = new JsonObject();
+        wordType.addProperty("wordType", type);
+
+        switch (type)
+        {
+            case "Noun":
+                String[] declension = pick(random, DECLENSIONS);
+                wordType.addProperty("gender", pick(random, new String[] { "Male", "Female", "Neuter" }));
+                wordType.addProperty("declension", declension[0]);
+                addForms(forms, stem, declension);
+                break;
+            case "Verb":
+                String[] conjugation = pick(random, CONJUGATIONS);
+                wordType.addProperty("conjugation", conjugation[0]);
+                wordType.addProperty("verbType", pick(random, new String[] { "Transitive", "Intransitive", "Deponent" }));
+                addForms(forms, stem, conjugation);
+                break;
+            case "Preposition":
+                wordType.addProperty("caseType", pick(random, new String[] { "Accusative", "Ablative" }));
+                forms.add(stem.toString());
+                break;
+            case "Adjective":
+                addForms(forms, stem, new String[] { type, "us", "a", "um" });
+                break;
+            default:
+                forms.add(stem + "e");
+        }
+
+        JsonArray definitions = new JsonArray();
+        for (int i = 1 + random.nextInt(2); i > 0; --i)
+        {
+            JsonArray terms = new JsonArray();
+            for (int j = 1 + random.nextInt(3); j > 0; --j)
+            {
+                StringBuilder term = new StringBuilder(pick(random, ENGLISH));
+                for (int k = random.nextInt(4); k > 0; --k)
+                {
+                    term.append(' ').append(pick(random, ENGLISH));
+                }
+                terms.add(term.toString());
+            }
+
+            JsonObject definition = new JsonObject();
+            definition.add("terms", terms);
+            definitions.add(definition);
+        }
+
+        JsonObject information = new JsonObject();
+        information.addProperty("age", pickCode(random, "XABCDEFGH"));
+        information.addProperty("subject_area", pickCode(random, "XABDEGLPSTWY"));
+        information.addProperty("geographical_area", pickCode(random, "XABCDEFGHIJKNPQRSU"));
+        information.addProperty("frequency", pickCode(random, "XABCDEFIMN"));
+        information.addProperty("source", pickCode(random, "XABCDEFGHIJKLMNOPQRSTUVWYZ"));
+
+        JsonObject word = new JsonObject();
+        word.add("forms", forms);
+        word.add("definitions", definitions);
+        word.add("word_type", wordType);
+        word.add("supplemental_information", information);
+        return word;
+    }
+
+    /**
+     * Adds the stem with each of the endings, which follow the name of the inflection.
+     */
+    private static void addForms(JsonArray forms, CharSequence stem, String[] inflection)
+    {
+        for (int i = 1; i < inflection.length; ++i)
+        {
+            forms.add(stem + inflection[i]);
+        }
+    }
+
+    private static <T> T pick(Random random, T[] choices)
+    {
+        return choices[random.nextInt(choices.length)];
+    }
+
+    private static String pickCode(Random random, String codes)
+    {
+        return String.valueOf(codes.charAt(random.nextInt(codes.length())));
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonPrimitive;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.redroma.lexis.service.words.LexisWord;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class CorpusTest
+{
+
+    private final List<LexisWord> words = Arrays.asList(Fixtures.word("C", "A"),
+                                                        Fixtures.word("F", "B"));
+
+    @Test
+    public void testRead() throws Exception
+    {
+        JsonArray json = new JsonArray();
+        json.add(words.get(0).asJSON());
+        json.add(new JsonPrimitive(5));
+        json.add(words.get(1).asJSON());
+
+        String text = json.toString() + "\n";
+        Corpus corpus = Corpus.read(streamOf(text));
+
+        //Each word is read exactly as it would be from its own JSON
+        LexisWord first = LexisWord.fromJSON(words.get(0).asJSON());
+        LexisWord second = LexisWord.fromJSON(words.get(1).asJSON());
+
+        assertThat(corpus.words(), contains(first, second));
+        assertThat(corpus.version(), is(Hashing.murmur3_128().hashString(text, UTF_8).toString().substring(0, 16)));
+    }
+
+    @Test
+    public void testReadWithNoWords() throws Exception
+    {
+        Corpus corpus = Corpus.read(streamOf("[ ]"));
+        assertThat(corpus.words(), is(empty()));
+    }
+
+    @Test
+    public void testEmpty() throws Exception
+    {
+        assertThat(Corpus.EMPTY.words(), is(empty()));
+        assertThat(Corpus.EMPTY.version(), is(Hashing.murmur3_128().hashString("", UTF_8).toString().substring(0, 16)));
+    }
+
+    @Test
+    public void testReadInChunks() throws Exception
+    {
+        JsonArray json = new JsonArray();
+        List<LexisWord> expected = Lists.create();
+
+        for (int i = 0; i < 100; ++i)
+        {
+            LexisWord word = words.get(i % 2);
+            json.add(word.asJSON());
+            expected.add(LexisWord.fromJSON(word.asJSON()));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try
+        {
+            //Every word in a chunk of its own, finishing in any order
+            Corpus corpus = Corpus.read(streamOf(json.toString()), pool, 1);
+
+            assertThat(corpus.words(), is(expected));
+            assertThat(corpus.failures(), is(empty()));
+            assertThat(corpus.version(), is(Corpus.read(streamOf(json.toString())).version()));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testReadWithFailures() throws Exception
+    {
+        String first = words.get(0).asJSON().toString();
+        String second = words.get(1).asJSON().toString();
+        String text = "[" + first + ", {\"word\": }, " + second + "]";
+
+        Corpus corpus = Corpus.read(streamOf(text), ForkJoinPool.commonPool(), 1);
+
+        assertThat(corpus.words(), contains(LexisWord.fromJSON(words.get(0).asJSON()),
+                                            LexisWord.fromJSON(words.get(1).asJSON())));
+        assertThat(corpus.failures(), hasSize(1));
+        assertThat(corpus.failures().get(0), startsWith("Chunk 1, after 0 words"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadWhenNotAnArray() throws Exception
+    {
+        Corpus.read(streamOf("{}"));
+    }
+
+    private static InputStream streamOf(String text)
+    {
+        return new ByteArrayInputStream(text.getBytes(UTF_8));
+    }
+
+}
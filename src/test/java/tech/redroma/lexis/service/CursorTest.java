@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class CursorTest
+{
+
+    @Test
+    public void testEncodeAndDecode()
+    {
+        String cursor = Cursor.encode("3f2a9c", 1234);
+
+        assertThat(cursor, not(containsString("1234")));
+        assertThat(Cursor.decode(cursor, "3f2a9c"), is(1234));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeFromAnotherVersion()
+    {
+        Cursor.decode(Cursor.encode("3f2a9c", 1234), "77b001");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeWhenNotBase64()
+    {
+        Cursor.decode("not a cursor!", "3f2a9c");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeWhenMalformed()
+    {
+        Cursor.decode(java.util.Base64.getUrlEncoder().encodeToString("3f2a9c:abc".getBytes()), "3f2a9c");
+    }
+
+}
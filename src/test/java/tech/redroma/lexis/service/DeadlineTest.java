@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class DeadlineTest
+{
+
+    @Test
+    public void testNone() throws Exception
+    {
+        assertThat(Deadline.NONE.hasPassed(), is(false));
+        assertThat(Deadline.NONE.wasMissed(), is(false));
+    }
+
+    @Test
+    public void testAfter() throws Exception
+    {
+        Deadline deadline = Deadline.after(60_000);
+
+        assertThat(deadline.hasPassed(), is(false));
+        assertThat(deadline.wasMissed(), is(false));
+    }
+
+    @Test
+    public void testWasMissedOnceChecked() throws Exception
+    {
+        Deadline deadline = Deadline.after(0);
+        assertThat(deadline.wasMissed(), is(false));
+
+        assertThat(deadline.hasPassed(), is(true));
+        assertThat(deadline.wasMissed(), is(true));
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.lexis.service.words.PackedStrings;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.lexis.service.Fixtures.toList;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class DefinitionIndexTest
+{
+
+    private String[][] definitionKeys;
+
+    private DefinitionIndex instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        definitionKeys = new String[][]
+        {
+            keys("to love, like", "to be fond of"),
+            keys("girl", "maiden"),
+            keys("Lovely, beautiful"),
+            keys("friend, ally")
+        };
+
+        instance = DefinitionIndex.of(PackedStrings.of(definitionKeys));
+    }
+
+    @Test
+    public void testWordsWithDefinitionContaining()
+    {
+        assertThat(toList(instance.wordsWithDefinitionContaining("love")), contains(0, 2));
+        assertThat(toList(instance.wordsWithDefinitionContaining("girl")), contains(1));
+        assertThat(toList(instance.wordsWithDefinitionContaining("ly")), contains(2, 3));
+    }
+
+    @Test
+    public void testWordsWithDefinitionContainingIgnoresCase()
+    {
+        assertThat(toList(instance.wordsWithDefinitionContaining("LOVE")), contains(0, 2));
+        assertThat(toList(instance.wordsWithDefinitionContaining("Girl")), contains(1));
+    }
+
+    @Test
+    public void testWordsWithDefinitionContainingSeveralTokens()
+    {
+        assertThat(toList(instance.wordsWithDefinitionContaining("to be")), contains(0));
+        assertThat(toList(instance.wordsWithDefinitionContaining("e, l")), contains(0));
+        assertThat(toList(instance.wordsWithDefinitionContaining("love, b")), is(empty()));
+    }
+
+    @Test
+    public void testWordsWithDefinitionContainingOnlySeparators()
+    {
+        assertThat(toList(instance.wordsWithDefinitionContaining(", ")), contains(0, 2, 3));
+    }
+
+    @Test
+    public void testWordsWithDefinitionContainingPartOfTokens()
+    {
+        //Found through the trigrams of the vocabulary
+        assertThat(toList(instance.wordsWithDefinitionContaining("ove")), contains(0, 2));
+        assertThat(toList(instance.wordsWithDefinitionContaining("aide")), contains(1));
+        assertThat(toList(instance.wordsWithDefinitionContaining("autiful")), contains(2));
+    }
+
+    @Test
+    public void testWordsWithDefinitionContainingEveryTrigramButNotThePiece()
+    {
+        instance = DefinitionIndex.of(PackedStrings.of(new String[][] { keys("abcaxbcab") }));
+
+        assertThat(toList(instance.wordsWithDefinitionContaining("bcab")), contains(0));
+        assertThat(toList(instance.wordsWithDefinitionContaining("abcab")), is(empty()));
+    }
+
+    @Test
+    public void testWordsWithDefinitionContainingWhenNoMatches()
+    {
+        assertThat(toList(instance.wordsWithDefinitionContaining("war")), is(empty()));
+    }
+
+    @Test
+    public void testPlanFor()
+    {
+        assertThat(toList(instance.planFor("love", false).stream(Deadline.NONE).toArray()), contains(0, 2));
+        assertThat(toList(instance.planFor(", ", false).stream(Deadline.NONE).toArray()), contains(0, 2, 3));
+        assertThat(toList(instance.planFor("war", false).stream(Deadline.NONE).toArray()), is(empty()));
+    }
+
+    @Test
+    public void testPlanForStopsAtDeadline()
+    {
+        Deadline deadline = Deadline.after(0);
+
+        assertThat(toList(instance.planFor(", ", false).stream(deadline).toArray()), is(empty()));
+        assertThat(deadline.wasMissed(), is(true));
+    }
+
+    @Test
+    public void testTokenize()
+    {
+        assertThat(DefinitionIndex.tokenize("to be, fond of"), contains("to", "be", "fond", "of"));
+        assertThat(DefinitionIndex.tokenize(" (a) "), contains("a"));
+        assertThat(DefinitionIndex.tokenize(" - "), is(empty()));
+    }
+
+    private static String[] keys(String... terms)
+    {
+        return Arrays.stream(terms)
+            .map(LatinNormalizer::normalize)
+            .toArray(String[]::new);
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.redroma.lexis.service.words.*;
+import tech.redroma.lexis.service.words.DictionaryCodes.*;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.lexis.service.Fixtures.toList;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class FacetFilterTest
+{
+
+    private List<Facet<?>> facets;
+
+    private Map<String, String> parameters;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        List<LexisWord> words = Arrays.asList(Fixtures.word("C", "A"),
+                                              Fixtures.word("C", "B"),
+                                              Fixtures.word("F", "A"),
+                                              Fixtures.word("C", "E"));
+
+        facets = Arrays.asList(Facet.of("age", Age.class, words.size(), id -> words.get(id).getSupplementalInformation().getAge()),
+                               Facet.of("frequency", Frequency.class, words.size(), id -> words.get(id).getSupplementalInformation().getFrequency()));
+
+        parameters = new HashMap<>();
+    }
+
+    @Test
+    public void testFromQueryWithoutParameters()
+    {
+        FacetFilter instance = FacetFilter.fromQuery(parameters::get, facets);
+
+        assertThat(instance.isEmpty(), is(true));
+        assertThat(toList(instance.apply(new int[] { 0, 2, 3 })), contains(0, 2, 3));
+        assertThat(toList(instance.apply(new int[] { 0, 1, 2, 3 })), contains(0, 1, 2, 3));
+    }
+
+    @Test
+    public void testOrWithinAFacet()
+    {
+        parameters.put("frequency", "A,B");
+        FacetFilter instance = FacetFilter.fromQuery(parameters::get, facets);
+
+        assertThat(instance.isEmpty(), is(false));
+        assertThat(toList(instance.apply(new int[] { 0, 1, 2, 3 })), contains(0, 1, 2));
+    }
+
+    @Test
+    public void testAndAcrossFacets()
+    {
+        parameters.put("age", "C");
+        parameters.put("frequency", "A,B");
+        FacetFilter instance = FacetFilter.fromQuery(parameters::get, facets);
+
+        assertThat(toList(instance.apply(new int[] { 0, 1, 2, 3 })), contains(0, 1));
+        assertThat(toList(instance.apply(new int[] { 1, 2, 3 })), contains(1));
+        assertThat(instance.matches(0), is(true));
+        assertThat(instance.matches(2), is(false));
+    }
+
+    @Test
+    public void testApplyToBitmap()
+    {
+        parameters.put("age", "C");
+        parameters.put("frequency", "A,B");
+        FacetFilter instance = FacetFilter.fromQuery(parameters::get, facets);
+
+        BitSet matches = new BitSet();
+        matches.set(1, 4);
+
+        assertThat(instance.apply(matches), sameInstance(matches));
+        assertThat(toList(matches), contains(1));
+
+        BitSet all = new BitSet();
+        all.set(0, 4);
+        FacetFilter.NONE.apply(all);
+        assertThat(toList(all), contains(0, 1, 2, 3));
+    }
+
+    @Test
+    public void testGrammaticalFacets()
+    {
+        List<LexisWord> words = Arrays.asList(word(new Verb(Verb.Conjugation.Third, Verb.Type.Transitive)),
+                                              word(new Verb(Verb.Conjugation.First, Verb.Type.Transitive)),
+                                              word(new Noun(Noun.Declension.Third, Noun.Gender.Male)),
+                                              word(new Verb(Verb.Conjugation.Third, Verb.Type.Deponent)));
+
+        List<Facet<?>> grammar = Arrays.asList(
+            Facet.of("wordType", WordType.Types.class, words.size(), id -> words.get(id).getWordType().getWordType()),
+            Facet.of("conjugation", Verb.Conjugation.class, words.size(), id ->
+                 words.get(id).getWordType() instanceof Verb ? ((Verb) words.get(id).getWordType()).getConjugation() : null));
+
+        parameters.put("wordType", "Verb");
+        parameters.put("conjugation", "third");
+        FacetFilter instance = FacetFilter.fromQuery(parameters::get, grammar);
+
+        assertThat(toList(instance.apply(new int[] { 0, 1, 2, 3 })), contains(0, 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromQueryWithUnknownValue()
+    {
+        parameters.put("age", "Z");
+        FacetFilter.fromQuery(parameters::get, facets);
+    }
+
+    private static LexisWord word(WordType wordType)
+    {
+        return new LexisWord(Arrays.asList("verbum"), Lists.emptyList(), wordType, new SupplementalInformation());
+    }
+
+}
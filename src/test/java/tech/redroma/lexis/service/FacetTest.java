@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.lexis.service.words.DictionaryCodes.Frequency;
+import tech.redroma.lexis.service.words.LexisWord;
+import tech.redroma.lexis.service.words.SupplementalInformation;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.lexis.service.Fixtures.toList;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class FacetTest
+{
+
+    private List<LexisWord> words;
+
+    private Facet<Frequency> instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        words = Arrays.asList(Fixtures.word("C", "A"),
+                              Fixtures.word("C", "B"),
+                              new LexisWord(),
+                              Fixtures.word("F", "A"));
+
+        instance = Facet.of("frequency", Frequency.class, words.size(), id ->
+                        {
+                            SupplementalInformation information = words.get(id).getSupplementalInformation();
+                            return information != null ? information.getFrequency() : null;
+                        });
+    }
+
+    @Test
+    public void testWordsWith()
+    {
+        assertThat(toList(instance.wordsWith(Frequency.A)), contains(0, 3));
+        assertThat(toList(instance.wordsWith(Frequency.B)), contains(1));
+        assertThat(toList(instance.wordsWith(Frequency.X)), is(empty()));
+    }
+
+    @Test
+    public void testWordsWithAny()
+    {
+        assertThat(toList(instance.wordsWithAny("A,B")), contains(0, 1, 3));
+        assertThat(toList(instance.wordsWithAny("b")), contains(1));
+    }
+
+    @Test
+    public void testWordsWithAnyDoesNotModifyBitmaps()
+    {
+        instance.wordsWithAny("A,B");
+        assertThat(toList(instance.wordsWith(Frequency.A)), contains(0, 3));
+    }
+
+    @Test
+    public void testCanonicalValues()
+    {
+        assertThat(instance.canonicalValues("b, a,A"), is("A,B"));
+        assertThat(instance.canonicalValues("A,B"), is("A,B"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCanonicalValuesWhenUnknown()
+    {
+        instance.canonicalValues("A,Q");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWordsWithAnyWhenUnknown()
+    {
+        instance.wordsWithAny("A,Q");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWordsWithAnyWhenBlank()
+    {
+        instance.wordsWithAny("A,");
+    }
+
+}
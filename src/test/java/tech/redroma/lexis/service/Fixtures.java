@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.BitSet;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.redroma.lexis.service.words.LexisWord;
+
+/**
+ * Words and conversions shared by the tests of the service.
+ *
+ * @author SirWellington
+ */
+final class Fixtures
+{
+
+    private Fixtures()
+    {
+    }
+
+    /**
+     * @return An adverb with the given age and frequency codes, and placeholders for the rest of its
+     *         supplemental information.
+     */
+    static LexisWord word(String age, String frequency)
+    {
+        JsonObject information = new JsonObject();
+        information.addProperty("age", age);
+        information.addProperty("subject_area", "X");
+        information.addProperty("geographical_area", "X");
+        information.addProperty("frequency", frequency);
+        information.addProperty("source", "X");
+
+        JsonObject wordType = new JsonObject();
+        wordType.addProperty("wordType", "Adverb");
+
+        JsonArray forms = new JsonArray();
+        forms.add("bene");
+
+        JsonObject json = new JsonObject();
+        json.add("forms", forms);
+        json.add("definitions", new JsonArray());
+        json.add("word_type", wordType);
+        json.add("supplemental_information", information);
+
+        return LexisWord.fromJSON(json);
+    }
+
+    static List<Integer> toList(int[] ids)
+    {
+        List<Integer> list = Lists.create();
+
+        for (int id : ids)
+        {
+            list.add(id);
+        }
+
+        return list;
+    }
+
+    static List<Integer> toList(BitSet ids)
+    {
+        return toList(ids.stream().toArray());
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.lexis.service.Fixtures.toList;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class FuzzyIndexTest
+{
+
+    private String[][] formKeys;
+
+    private FuzzyIndex instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        formKeys = new String[][]
+        {
+            { "amo", "amare", "amaui", "amatus" },
+            { "puella", "puellae" },
+            { "ambulo", "ambulare" },
+            { "amicus", "amici" }
+        };
+
+        instance = FuzzyIndex.of(formKeys);
+    }
+
+    @Test
+    public void testWordsWithin()
+    {
+        assertThat(toList(instance.wordsWithin("amo", 0, Deadline.NONE)), contains(0));
+        assertThat(toList(instance.wordsWithin("puela", 1, Deadline.NONE)), contains(1));
+        assertThat(toList(instance.wordsWithin("amici", 1, Deadline.NONE)), contains(3));
+        assertThat(toList(instance.wordsWithin("amavit", 2, Deadline.NONE)), contains(0));
+    }
+
+    @Test
+    public void testWordsWithinWhenNoMatches()
+    {
+        assertThat(toList(instance.wordsWithin("puela", 0, Deadline.NONE)), is(empty()));
+        assertThat(toList(instance.wordsWithin("xyz", 2, Deadline.NONE)), is(empty()));
+    }
+
+    @Test
+    public void testWordsWithinWhenOutOfTime()
+    {
+        Deadline deadline = Deadline.after(0);
+
+        assertThat(toList(instance.wordsWithin("amo", 0, deadline)), is(empty()));
+        assertThat(deadline.wasMissed(), is(true));
+    }
+
+    @Test
+    public void testWordsWithinEmptyIndex()
+    {
+        FuzzyIndex empty = FuzzyIndex.of(new String[0][]);
+        assertThat(toList(empty.wordsWithin("amo", 2, Deadline.NONE)), is(empty()));
+    }
+
+    @Test
+    public void testDistance()
+    {
+        assertThat(FuzzyIndex.distance("kitten", "sitting"), is(3));
+        assertThat(FuzzyIndex.distance("amo", "amo"), is(0));
+        assertThat(FuzzyIndex.distance("", "amo"), is(3));
+        assertThat(FuzzyIndex.distance("puella", "puela"), is(1));
+    }
+
+}
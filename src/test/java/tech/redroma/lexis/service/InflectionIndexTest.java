@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.lexis.service.words.LexisWord;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.lexis.service.Fixtures.toList;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class InflectionIndexTest
+{
+
+    private List<LexisWord> words;
+
+    private InflectionIndex instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        words = Arrays.asList(noun("puella", "puellae", "First", "Female"),
+                              verb("amo", "amare", "amavi", "amatus"),
+                              noun("amica", "amicae", "First", "Female"),
+                              verb("amo", "amare", "amavi", "amatus"));
+
+        instance = InflectionIndex.of(words);
+    }
+
+    @Test
+    public void testLemmasOf()
+    {
+        assertThat(toList(instance.lemmasOf("puellarum")), contains(0));
+        assertThat(toList(instance.lemmasOf("amicis")), contains(2));
+        assertThat(toList(instance.lemmasOf("amavissent")), contains(1, 3));
+    }
+
+    @Test
+    public void testLemmasOfPrincipalParts()
+    {
+        assertThat(toList(instance.lemmasOf("puella")), contains(0));
+        assertThat(toList(instance.lemmasOf("amare")), contains(1, 3));
+    }
+
+    @Test
+    public void testLemmasOfNormalizesForm()
+    {
+        assertThat(toList(instance.lemmasOf("AMAUISSENT")), contains(1, 3));
+        assertThat(toList(instance.lemmasOf("Puellārum")), contains(0));
+    }
+
+    @Test
+    public void testLemmasOfUnknownForm()
+    {
+        assertThat(toList(instance.lemmasOf("puellibus")), is(empty()));
+        assertThat(toList(instance.lemmasOf("")), is(empty()));
+    }
+
+    private static LexisWord noun(String nominative, String genitive, String declension, String gender)
+    {
+        JsonObject wordType = new JsonObject();
+        wordType.addProperty("wordType", "Noun");
+        wordType.addProperty("declension", declension);
+        wordType.addProperty("gender", gender);
+
+        return word(wordType, nominative, genitive);
+    }
+
+    private static LexisWord verb(String... forms)
+    {
+        JsonObject wordType = new JsonObject();
+        wordType.addProperty("wordType", "Verb");
+        wordType.addProperty("conjugation", "First");
+        wordType.addProperty("verbType", "Transitive");
+
+        return word(wordType, forms);
+    }
+
+    private static LexisWord word(JsonObject wordType, String... forms)
+    {
+        JsonArray formsArray = new JsonArray();
+        Arrays.stream(forms).forEach(formsArray::add);
+
+        JsonObject json = new JsonObject();
+        json.add("forms", formsArray);
+        json.add("definitions", new JsonArray());
+        json.add("word_type", wordType);
+
+        return LexisWord.fromJSON(json);
+    }
+
+}
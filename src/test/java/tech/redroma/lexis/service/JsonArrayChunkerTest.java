@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class JsonArrayChunkerTest
+{
+
+    @Test
+    public void testNext() throws Exception
+    {
+        String json = " [{\"a\": [1, 2]}, \"x, ]}\", {\"b\": \"\\\\\"}, 3]";
+
+        List<String> chunks = chunksOf(json, 1);
+        assertThat(chunks, contains("[{\"a\": [1, 2]}]",
+                                    "[ \"x, ]}\"]",
+                                    "[ {\"b\": \"\\\\\"}]",
+                                    "[ 3]"));
+    }
+
+    @Test
+    public void testNextWithLargeChunks() throws Exception
+    {
+        String json = "[1, 2, 3]";
+
+        assertThat(chunksOf(json, 1024), contains(json));
+    }
+
+    @Test
+    public void testNextWithEscapedQuote() throws Exception
+    {
+        String json = "[\"a\\\"], [\", 2]";
+
+        assertThat(chunksOf(json, 1), contains("[\"a\\\"], [\"]", "[ 2]"));
+    }
+
+    @Test
+    public void testNextWithEmptyArray() throws Exception
+    {
+        assertThat(chunksOf("[]", 1), contains("[]"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNextWhenNotAnArray() throws Exception
+    {
+        chunksOf("{\"a\": 1}", 1);
+    }
+
+    @Test(expected = IOException.class)
+    public void testNextWhenTruncated() throws Exception
+    {
+        chunksOf("[1, 2", 1);
+    }
+
+    private static List<String> chunksOf(String json, int chunkSize) throws IOException
+    {
+        JsonArrayChunker chunker = new JsonArrayChunker(new StringReader(json), chunkSize);
+        List<String> chunks = Lists.create();
+
+        for (String chunk = chunker.next(); chunk != null; chunk = chunker.next())
+        {
+            chunks.add(chunk);
+        }
+
+        return chunks;
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class LatinNormalizerTest
+{
+
+    @Test
+    public void testNormalizeFoldsLetters()
+    {
+        assertThat(LatinNormalizer.normalize("Iulius"), is("iulius"));
+        assertThat(LatinNormalizer.normalize("julius"), is("iulius"));
+        assertThat(LatinNormalizer.normalize("VIVO"), is("uiuo"));
+        assertThat(LatinNormalizer.normalize("uiuo"), is("uiuo"));
+    }
+
+    @Test
+    public void testNormalizeStripsDiacritics()
+    {
+        assertThat(LatinNormalizer.normalize("Iūlius"), is("iulius"));
+        assertThat(LatinNormalizer.normalize("rēgīna"), is("regina"));
+        assertThat(LatinNormalizer.normalize("poëta"), is("poeta"));
+    }
+
+    @Test
+    public void testNormalizeSpellsOutLigatures()
+    {
+        assertThat(LatinNormalizer.normalize("Cæsar"), is("caesar"));
+        assertThat(LatinNormalizer.normalize("pœna"), is("poena"));
+    }
+
+    @Test
+    public void testNormalizeReturnsKeysAsIs()
+    {
+        String key = "amare, to like";
+        assertThat(LatinNormalizer.normalize(key), sameInstance(key));
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class PostingsTest
+{
+
+    @Test
+    public void testSortedDistinct()
+    {
+        int[] ids = { 5, 1, 5, 3, 1, 9 };
+
+        assertArrayEquals(new int[] { 1, 3, 5, 9 }, Postings.sortedDistinct(ids, ids.length));
+        assertArrayEquals(new int[] { 1, 5 }, Postings.sortedDistinct(ids, 3));
+        assertArrayEquals(new int[0], Postings.sortedDistinct(ids, 0));
+    }
+
+    @Test
+    public void testBuilder()
+    {
+        Postings.Builder builder = new Postings.Builder(1);
+
+        for (int id = 40; id >= 0; --id)
+        {
+            builder.add(id % 20);
+        }
+
+        int[] expected = new int[20];
+        for (int i = 0; i < expected.length; ++i)
+        {
+            expected[i] = i;
+        }
+
+        assertArrayEquals(expected, builder.build());
+    }
+
+}
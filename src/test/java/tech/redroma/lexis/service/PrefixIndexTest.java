@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.lexis.service.words.LexisWord;
+import tech.redroma.lexis.service.words.PackedStrings;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.lexis.service.Fixtures.toList;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class PrefixIndexTest
+{
+
+    private String[][] formKeys;
+
+    private PrefixIndex instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        formKeys = new String[][]
+        {
+            { "amo", "amare", "amaui", "amatus" },
+            { "puella", "puellae" },
+            { "ambulo", "ambulare" },
+            { "amicus", "amici" }
+        };
+
+        instance = PrefixIndex.of(formKeys);
+    }
+
+    @Test
+    public void testWordsStartingWith()
+    {
+        assertThat(toList(instance.wordsStartingWith("am")), contains(0, 2, 3));
+        assertThat(toList(instance.wordsStartingWith("amb")), contains(2));
+        assertThat(toList(instance.wordsStartingWith("puellae")), contains(1));
+    }
+
+    @Test
+    public void testWordsStartingWithNormalizesPrefix()
+    {
+        assertThat(toList(instance.wordsStartingWith("AMAV")), contains(0));
+        assertThat(toList(instance.wordsStartingWith("P\u016Bella")), contains(1));
+    }
+
+    @Test
+    public void testWordsStartingWithWhenNoMatches()
+    {
+        assertThat(toList(instance.wordsStartingWith("zz")), is(empty()));
+        assertThat(toList(instance.wordsStartingWith("amz")), is(empty()));
+    }
+
+    @Test
+    public void testWordsStartingWithShortPrefixIsPrecomputed()
+    {
+        int[] words = instance.wordsStartingWith("am");
+
+        assertThat(instance.wordsStartingWith("AM"), sameInstance(words));
+        assertThat(instance.wordsStartingWith("amaui"), not(sameInstance(instance.wordsStartingWith("amaui"))));
+    }
+
+    @Test
+    public void testWordsStartingWithEmptyPrefix()
+    {
+        assertThat(toList(instance.wordsStartingWith("")), contains(0, 1, 2, 3));
+    }
+
+    @Test
+    public void testSuggestionsFor()
+    {
+        PrefixIndex.Suggestions suggestions = instance.suggestionsFor("am", 3);
+
+        assertThat(suggestions.count(), is(3));
+        assertThat(suggestions.forms(), contains("amare", "amatus", "amaui"));
+    }
+
+    @Test
+    public void testSuggestionsForLongPrefix()
+    {
+        PrefixIndex.Suggestions suggestions = instance.suggestionsFor("puella", 10);
+
+        assertThat(suggestions.count(), is(1));
+        assertThat(suggestions.forms(), contains("puella", "puellae"));
+    }
+
+    @Test
+    public void testSuggestionsAreRanked()
+    {
+        String[][] displayForms =
+        {
+            { "amo", "amare", "amavi", "amatus" },
+            { "puella", "puellae" },
+            { "ambulo", "ambulare" },
+            { "amicus", "amici" }
+        };
+
+        List<LexisWord> words = Arrays.asList(Fixtures.word("C", "B"),
+                                              Fixtures.word("C", "A"),
+                                              Fixtures.word("C", "C"),
+                                              Fixtures.word("C", "A"));
+
+        instance = PrefixIndex.of(formKeys, PackedStrings.of(displayForms), Ranking.byFrequency(id -> words.get(id).getSupplementalInformation(), PackedStrings.of(formKeys)));
+
+        assertThat(instance.suggestionsFor("am", 3).forms(), contains("amicus", "amici", "amo"));
+        assertThat(instance.suggestionsFor("AMAV", 10).forms(), contains("amavi"));
+        assertThat(instance.suggestionsFor("amb", 1).forms(), contains("ambulo"));
+        assertThat(instance.suggestionsFor("amb", 1).count(), is(1));
+    }
+
+    @Test
+    public void testSuggestionsForWhenNoMatches()
+    {
+        PrefixIndex.Suggestions suggestions = instance.suggestionsFor("zz", 10);
+
+        assertThat(suggestions.count(), is(0));
+        assertThat(suggestions.forms(), is(empty()));
+    }
+
+    @Test
+    public void testSize()
+    {
+        assertThat(instance.size(), is(10));
+    }
+
+}
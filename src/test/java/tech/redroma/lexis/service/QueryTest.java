@@ -0,0 +1,258 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.gson.JsonElement;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.lexis.service.words.DictionaryCodes.Frequency;
+import tech.redroma.lexis.service.words.JSONConvertible;
+import tech.redroma.lexis.service.words.LexisWord;
+import tech.redroma.lexis.service.words.PackedStrings;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.lexis.service.Fixtures.toList;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class QueryTest
+{
+
+    private Query.Parser instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        String[][] formKeys =
+        {
+            { "amo", "amare" },
+            { "puella", "puellae" },
+            { "ambulo", "ambulare" },
+            { "amicus", "amici" }
+        };
+
+        String[][] definitionKeys =
+        {
+            { "like", "adore" },
+            { "girl" },
+            { "walk" },
+            { "friend", "likely" }
+        };
+
+        List<LexisWord> words = Arrays.asList(Fixtures.word("C", "A"),
+                                              Fixtures.word("C", "B"),
+                                              Fixtures.word("C", "C"),
+                                              Fixtures.word("C", "A"));
+
+        List<Facet<?>> facets = Arrays.asList(
+            Facet.of("frequency", Frequency.class, words.size(), id -> words.get(id).getSupplementalInformation().getFrequency()));
+
+        instance = new Query.Parser(formKeys.length,
+                                    PrefixIndex.of(formKeys),
+                                    TrigramIndex.of(PackedStrings.of(formKeys)),
+                                    DefinitionIndex.of(PackedStrings.of(definitionKeys)),
+                                    facets);
+    }
+
+    @Test
+    public void testPredicates()
+    {
+        assertThat(search("{'startsWith': 'am'}"), contains(0, 2, 3));
+        assertThat(search("{'contains': 'are'}"), contains(0, 2));
+        assertThat(search("{'definitionContains': 'like'}"), contains(0, 3));
+        assertThat(search("{'frequency': 'A'}"), contains(0, 3));
+    }
+
+    @Test
+    public void testAnd()
+    {
+        assertThat(search("{'and': [{'startsWith': 'am'}, {'frequency': 'A,C'}, {'contains': 'are'}]}"), contains(0, 2));
+        assertThat(search("{'and': [{'startsWith': 'pu'}, {'frequency': 'A'}]}"), is(empty()));
+    }
+
+    @Test
+    public void testOr()
+    {
+        assertThat(search("{'or': [{'startsWith': 'pu'}, {'definitionContains': 'walk'}]}"), contains(1, 2));
+    }
+
+    @Test
+    public void testNot()
+    {
+        assertThat(search("{'not': {'startsWith': 'am'}}"), contains(1));
+        assertThat(search("{'and': [{'startsWith': 'am'}, {'not': {'frequency': 'A'}}]}"), contains(2));
+        assertThat(search("{'and': [{'not': {'frequency': 'A'}}, {'not': {'frequency': 'B'}}]}"), contains(2));
+    }
+
+    @Test
+    public void testMatchesAmongCandidates()
+    {
+        BitSet candidates = new BitSet();
+        candidates.set(2);
+        candidates.set(3);
+
+        assertThat(toList(parse("{'contains': 'are'}").matches(candidates, Deadline.NONE)), contains(2));
+        assertThat(toList(parse("{'startsWith': 'am'}").matches(candidates, Deadline.NONE)), contains(2, 3));
+        assertThat(toList(parse("{'not': {'frequency': 'A'}}").matches(candidates, Deadline.NONE)), contains(2));
+        assertThat(toList(parse("{'or': [{'definitionContains': 'like'}, {'frequency': 'C'}]}").matches(candidates, Deadline.NONE)),
+                   contains(2, 3));
+
+        //The candidates are left as they were
+        assertThat(toList(candidates), contains(2, 3));
+    }
+
+    @Test
+    public void testMatchesInParallel()
+    {
+        int wordCount = 4 * SearchPlan.PARALLEL_THRESHOLD;
+        String[][] formKeys = new String[wordCount][];
+        for (int id = 0; id < wordCount; ++id)
+        {
+            formKeys[id] = new String[] { "am" + id };
+        }
+
+        Query.Parser parser = new Query.Parser(wordCount,
+                                               PrefixIndex.of(formKeys),
+                                               TrigramIndex.of(PackedStrings.of(formKeys)),
+                                               DefinitionIndex.of(PackedStrings.of(new String[wordCount][0])),
+                                               Collections.emptyList());
+
+        //Too short for the trigrams, so every word is checked, in parallel
+        Query query = parser.parse(JSONConvertible.GSON.fromJson("{'contains': 'am'}", JsonElement.class));
+
+        //A lost match depends on how the threads interleave, so give it several chances to show up
+        for (int i = 0; i < 20; ++i)
+        {
+            assertThat(query.matches(Deadline.NONE).cardinality(), is(wordCount));
+        }
+    }
+
+    @Test(expected = SearchRejectedException.class)
+    public void testMatchesWhenOutOfTime() throws Exception
+    {
+        parse("{'and': [{'contains': 'ama'}, {'not': {'definitionContains': 'like'}}]}").matches(Deadline.after(0));
+    }
+
+    @Test
+    public void testCost()
+    {
+        Query cheap = parse("{'frequency': 'A'}");
+        Query expensive = parse("{'and': [{'frequency': 'A'}, {'definitionContains': 'like'}]}");
+
+        assertThat(cheap.cost(), lessThan(expensive.cost()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWithUnknownKey()
+    {
+        parse("{'endsWith': 'are'}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWithSeveralKeys()
+    {
+        parse("{'startsWith': 'am', 'contains': 'are'}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWithEmptyAnd()
+    {
+        parse("{'and': []}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWithUnknownFacetValue()
+    {
+        parse("{'frequency': 'Q'}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWithTooManyPredicates()
+    {
+        StringBuilder json = new StringBuilder("{'or': [");
+
+        for (int i = 0; i <= Query.Parser.MAX_PREDICATES; ++i)
+        {
+            json.append(i > 0 ? "," : "").append("{'startsWith': 'a'}");
+        }
+
+        parse(json.append("]}").toString());
+    }
+
+    @Test
+    public void testParseAtMaxDepth()
+    {
+        //The predicate sits at the deepest level allowed, under an odd number of nots
+        assertThat(toList(parse(nested(Query.Parser.MAX_DEPTH - 1)).matches()), contains(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWhenTooDeep()
+    {
+        parse(nested(Query.Parser.MAX_DEPTH));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWhenFarTooDeep()
+    {
+        parse(nested(200));
+    }
+
+    /**
+     * @return The predicate {@code startsWith: am} inside the given number of {@code not}s.
+     */
+    private static String nested(int nots)
+    {
+        StringBuilder json = new StringBuilder();
+
+        for (int i = 0; i < nots; ++i)
+        {
+            json.append("{'not': ");
+        }
+
+        json.append("{'startsWith': 'am'}");
+
+        for (int i = 0; i < nots; ++i)
+        {
+            json.append('}');
+        }
+
+        return json.toString();
+    }
+
+    private Query parse(String json)
+    {
+        return instance.parse(JSONConvertible.GSON.fromJson(json, JsonElement.class));
+    }
+
+    private List<Integer> search(String json)
+    {
+        return toList(parse(json).matches());
+    }
+
+}
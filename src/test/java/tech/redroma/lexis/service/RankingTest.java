@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.lexis.service.words.LexisWord;
+import tech.redroma.lexis.service.words.PackedStrings;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.lexis.service.Fixtures.toList;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class RankingTest
+{
+
+    private Ranking instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        List<LexisWord> words = Arrays.asList(Fixtures.word("C", "X"),
+                                              Fixtures.word("C", "B"),
+                                              Fixtures.word("C", "A"),
+                                              Fixtures.word("C", "B"),
+                                              Fixtures.word("C", "N"),
+                                              Fixtures.word("C", "B"),
+                                              new LexisWord());
+
+        String[][] formKeys =
+        {
+            { "amo" },
+            { "puella", "puellae" },
+            { "sum", "esse" },
+            { "rex", "regis" },
+            { "aer" },
+            { "rex" },
+            { }
+        };
+
+        instance = Ranking.byFrequency(id -> words.get(id).getSupplementalInformation(), PackedStrings.of(formKeys));
+    }
+
+    @Test
+    public void testTop()
+    {
+        int[] wordIds = { 0, 1, 2, 3, 4, 5, 6 };
+
+        assertThat(toList(instance.top(wordIds, 3)), contains(2, 3, 5));
+        assertThat(toList(instance.top(wordIds, 7)), contains(2, 3, 5, 1, 4, 0, 6));
+    }
+
+    @Test
+    public void testTopOfSomeWords()
+    {
+        assertThat(toList(instance.top(new int[] { 0, 1, 4 }, 2)), contains(1, 4));
+    }
+
+    @Test
+    public void testTopWhenLimitExceedsMatches()
+    {
+        assertThat(toList(instance.top(new int[] { 0, 2 }, 10)), contains(2, 0));
+    }
+
+    @Test
+    public void testTopWhenEmpty()
+    {
+        assertThat(toList(instance.top(Postings.EMPTY, 10)), is(empty()));
+        assertThat(toList(instance.top(new int[] { 0, 2 }, 0)), is(empty()));
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.lexis.service.words.JSONConvertible;
+import tech.redroma.lexis.service.words.LexisWord;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class RenderedWordsTest
+{
+
+    private List<LexisWord> words;
+
+    private RenderedWords instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        words = Arrays.asList(Fixtures.word("C", "A"),
+                              Fixtures.word("F", "B"),
+                              Fixtures.word("X", "N"));
+
+        instance = RenderedWords.of(words);
+    }
+
+    @Test
+    public void testWriteTo() throws Exception
+    {
+        int[] wordIds = { 0, 2 };
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        instance.writeTo(output, wordIds);
+
+        JsonArray json = parse(output);
+
+        assertThat(json.size(), is(2));
+        assertThat(json.get(0), is(words.get(0).asJSON()));
+        assertThat(json.get(1), is(words.get(2).asJSON()));
+        assertThat((long) output.size(), is(instance.lengthOf(wordIds)));
+    }
+
+    @Test
+    public void testToByteArray() throws Exception
+    {
+        int[] wordIds = { 1, 2 };
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        instance.writeTo(output, wordIds);
+
+        byte[] bytes = instance.toByteArray(wordIds);
+        assertThat(new String(bytes, UTF_8), is(new String(output.toByteArray(), UTF_8)));
+    }
+
+    @Test
+    public void testWriteToWithNoWords() throws Exception
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        instance.writeTo(output, Postings.EMPTY);
+
+        assertThat(output.toString("UTF-8"), is("[]"));
+        assertThat(instance.lengthOf(Postings.EMPTY), is(2L));
+    }
+
+    @Test
+    public void testWriteAllTo() throws Exception
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        instance.writeAllTo(output);
+
+        JsonArray json = parse(output);
+
+        assertThat(json.size(), is(3));
+
+        for (int id = 0; id < words.size(); ++id)
+        {
+            assertThat(json.get(id), is(words.get(id).asJSON()));
+        }
+
+        assertThat((long) output.size(), is(instance.lengthOfAll()));
+    }
+
+    @Test
+    public void testWriteAllToWhenEmpty() throws Exception
+    {
+        instance = RenderedWords.of(Collections.emptyList());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        instance.writeAllTo(output);
+
+        assertThat(output.toString("UTF-8"), is("[]"));
+        assertThat(instance.lengthOfAll(), is(2L));
+    }
+
+    @Test
+    public void testGzipAll() throws Exception
+    {
+        ByteArrayOutputStream identity = new ByteArrayOutputStream();
+        instance.writeAllTo(identity);
+
+        byte[] gzipped = instance.gzipAll();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(gzipped)))
+        {
+            byte[] chunk = new byte[1024];
+            for (int read = input.read(chunk); read >= 0; read = input.read(chunk))
+            {
+                output.write(chunk, 0, read);
+            }
+        }
+
+        assertThat(output.toString("UTF-8"), is(identity.toString("UTF-8")));
+    }
+
+    private static JsonArray parse(ByteArrayOutputStream output)
+    {
+        String json = new String(output.toByteArray(), UTF_8);
+        return JSONConvertible.GSON.fromJson(json, JsonElement.class).getAsJsonArray();
+    }
+
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class ResponseCacheTest
+{
+
+    private RenderedResponse response;
+
+    private AtomicInteger searches;
+
+    private ResponseCache instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        RenderedWords words = RenderedWords.of(Arrays.asList(Fixtures.word("C", "A")));
+        response = RenderedResponse.of(new SearchOptions.Page(new int[] { 0 }, null), words);
+        searches = new AtomicInteger();
+
+        //Room for two responses, but not three
+        instance = new ResponseCache(2 * response.sizeInBytes() + 1);
+    }
+
+    @Test
+    public void testGetSearchesOnlyOnAMiss() throws Exception
+    {
+        assertThat(get("a"), sameInstance(response));
+        assertThat(get("a"), sameInstance(response));
+
+        assertThat(searches.get(), is(1));
+
+        ResponseCache.Stats stats = instance.stats();
+        assertThat(stats.hits, is(1L));
+        assertThat(stats.misses, is(1L));
+        assertThat(stats.entries, is(1));
+        assertThat(stats.bytes, is(response.sizeInBytes()));
+        assertThat(stats.hitRate(), is(0.5));
+    }
+
+    @Test
+    public void testRejectsResponsesLargerThanTheCache() throws Exception
+    {
+        instance = new ResponseCache(response.sizeInBytes() - 1);
+
+        get("a");
+        get("a");
+
+        assertThat(searches.get(), is(2));
+        assertThat(instance.stats().rejections, is(2L));
+        assertThat(instance.stats().bytes, is(0L));
+    }
+
+    @Test
+    public void testOneOffSearchDoesNotEvictPopularOnes() throws Exception
+    {
+        for (int i = 0; i < 3; ++i)
+        {
+            get("a");
+            get("b");
+        }
+
+        get("c");
+
+        assertThat(instance.getIfPresent("c"), nullValue());
+        assertThat(instance.getIfPresent("a"), notNullValue());
+        assertThat(instance.getIfPresent("b"), notNullValue());
+        assertThat(instance.stats().evictions, is(0L));
+    }
+
+    @Test
+    public void testPopularSearchEvictsLeastRecentlyUsed() throws Exception
+    {
+        for (int i = 0; i < 3; ++i)
+        {
+            get("a");
+            get("b");
+        }
+
+        for (int i = 0; i < 6; ++i)
+        {
+            get("c");
+        }
+
+        assertThat(instance.getIfPresent("c"), notNullValue());
+        assertThat(instance.getIfPresent("a"), nullValue());
+        assertThat(instance.getIfPresent("b"), notNullValue());
+        assertThat(instance.stats().evictions, is(1L));
+        assertThat(instance.stats().bytes, is(2 * response.sizeInBytes()));
+    }
+
+    @Test
+    public void testConcurrentHitsAreAllCounted() throws Exception
+    {
+        int threads = 8;
+        int lookups = 1_000;
+        get("a");
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try
+        {
+            List<Future<?>> futures = Lists.create();
+
+            for (int i = 0; i < threads; ++i)
+            {
+                futures.add(executor.submit(() ->
+                {
+                    for (int j = 0; j < lookups; ++j)
+                    {
+                        assertThat(instance.getIfPresent("a"), sameInstance(response));
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures)
+            {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertThat(instance.stats().hits, is((long) threads * lookups));
+        assertThat(instance.stats().misses, is(1L));
+    }
+
+    @Test
+    public void testConcurrentIdenticalSearchesRunOnce() throws Exception
+    {
+        int followers = 4;
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(followers + 1);
+
+        try
+        {
+            Future<RenderedResponse> leader = executor.submit(() -> instance.get("a", Deadline.NONE, () ->
+                                                                    {
+                                                                        searches.incrementAndGet();
+                                                                        await(release);
+                                                                        return response;
+                                                                    }));
+
+            while (searches.get() == 0)
+            {
+                Thread.yield();
+            }
+
+            List<Future<RenderedResponse>> others = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < followers; ++i)
+            {
+                others.add(executor.submit(() -> get("a")));
+            }
+
+            while (instance.stats().coalesced < followers)
+            {
+                Thread.yield();
+            }
+
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS), sameInstance(response));
+            for (Future<RenderedResponse> other : others)
+            {
+                assertThat(other.get(5, TimeUnit.SECONDS), sameInstance(response));
+            }
+
+            assertThat(searches.get(), is(1));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWaiterStopsWaitingAtItsDeadline() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try
+        {
+            Future<RenderedResponse> leader = executor.submit(() -> instance.get("a", Deadline.NONE, () ->
+                                                                    {
+                                                                        searches.incrementAndGet();
+                                                                        await(release);
+                                                                        return response;
+                                                                    }));
+
+            while (searches.get() == 0)
+            {
+                Thread.yield();
+            }
+
+            //Searches for itself once its deadline passes, while the first search is still running
+            RenderedResponse own = instance.get("a", Deadline.after(10), () ->
+                                            {
+                                                searches.incrementAndGet();
+                                                return response;
+                                            });
+
+            assertThat(own, sameInstance(response));
+            assertThat(searches.get(), is(2));
+
+            release.countDown();
+            assertThat(leader.get(5, TimeUnit.SECONDS), sameInstance(response));
+        }
+        finally
+        {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWaitersDoNotSharePartialResponses() throws Exception
+    {
+        RenderedWords words = RenderedWords.of(Arrays.asList(Fixtures.word("C", "A")));
+        RenderedResponse partial = RenderedResponse.of(new SearchOptions.Page(new int[] { 0 }, null), words, true);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try
+        {
+            Future<RenderedResponse> leader = executor.submit(() -> instance.get("a", Deadline.after(5_000), () ->
+                                                                    {
+                                                                        searches.incrementAndGet();
+                                                                        await(release);
+                                                                        return partial;
+                                                                    }));
+
+            while (searches.get() == 0)
+            {
+                Thread.yield();
+            }
+
+            Future<RenderedResponse> other = executor.submit(() -> get("a"));
+
+            while (instance.stats().coalesced < 1)
+            {
+                Thread.yield();
+            }
+
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS), sameInstance(partial));
+            assertThat(other.get(5, TimeUnit.SECONDS), sameInstance(response));
+            assertThat(searches.get(), is(2));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailedSearchIsNotCached() throws Exception
+    {
+        try
+        {
+            instance.get("a", Deadline.NONE, () ->
+                     {
+                         throw new IllegalStateException();
+                     });
+        }
+        catch (IllegalStateException expected)
+        {
+        }
+
+        get("a");
+
+        assertThat(searches.get(), is(1));
+    }
+
+    @Test
+    public void testPartialResponsesAreNotCached() throws Exception
+    {
+        RenderedWords words = RenderedWords.of(Arrays.asList(Fixtures.word("C", "A")));
+        RenderedResponse partial = RenderedResponse.of(new SearchOptions.Page(new int[] { 0 }, null), words, true);
+
+        instance.put("a", partial);
+
+        assertThat(instance.getIfPresent("a"), nullValue());
+        assertThat(instance.stats().entries, is(0));
+    }
+
+    @Test
+    public void testKeyOf() throws Exception
+    {
+        SearchOptions none = options(Collections.emptyMap());
+
+        assertThat(ResponseCache.keyOf("containing", "Amo", none), is(ResponseCache.keyOf("containing", "amo", none)));
+        assertThat(ResponseCache.keyOf("containing", "amo", none), not(ResponseCache.keyOf("starting-with", "amo", none)));
+        assertThat(ResponseCache.keyOf("containing", "amo", options(Collections.singletonMap("limit", "5"))),
+                   not(ResponseCache.keyOf("containing", "amo", none)));
+    }
+
+    @Test
+    public void testKeyOfIgnoresTimeout() throws Exception
+    {
+        SearchOptions none = options(Collections.emptyMap());
+        SearchOptions timed = options(Collections.singletonMap("timeoutMs", "50"));
+
+        assertThat(ResponseCache.keyOf("containing", "amo", timed), is(ResponseCache.keyOf("containing", "amo", none)));
+    }
+
+    private static SearchOptions options(Map<String, String> parameters)
+    {
+        return SearchOptions.fromQuery(parameters::get, Collections.emptyList(), Collections.emptyMap(), "v1");
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private RenderedResponse get(String key)
+    {
+        return instance.get(key, Deadline.NONE, () ->
+                    {
+                        searches.incrementAndGet();
+                        return response;
+                    });
+    }
+
+}
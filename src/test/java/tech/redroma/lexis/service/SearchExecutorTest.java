@@ -0,0 +1,207 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class SearchExecutorTest
+{
+
+    private final SearchExecutor instance = new SearchExecutor(2);
+
+    @Test
+    public void testRunsOnItsOwnThreads() throws Exception
+    {
+        String thread = instance.run(() -> Thread.currentThread().getName());
+
+        assertThat(thread, startsWith("lexis-search-"));
+    }
+
+    @Test
+    public void testParallelStreamsStayOnItsThreads() throws Exception
+    {
+        boolean allOnPool = instance.run(() -> IntStream.range(0, 10_000)
+            .parallel()
+            .allMatch(i -> Thread.currentThread().getName().startsWith("lexis-search-")));
+
+        assertThat(allOnPool, is(true));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRethrowsFailures() throws Exception
+    {
+        instance.run(() ->
+        {
+            throw new IllegalStateException();
+        });
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRethrowsFailuresWithADeadline() throws Exception
+    {
+        instance.run(() ->
+        {
+            throw new IllegalStateException();
+        }, Deadline.after(1_000));
+    }
+
+    @Test
+    public void testRunWithADeadline() throws Exception
+    {
+        String thread = instance.run(() -> Thread.currentThread().getName(), Deadline.after(1_000));
+
+        assertThat(thread, startsWith("lexis-search-"));
+    }
+
+    @Test(expected = SearchRejectedException.class)
+    public void testRejectsWhenTheQueueIsFull() throws Exception
+    {
+        SearchExecutor executor = new SearchExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        Thread blocker = new Thread(() -> executor.run(() ->
+        {
+            started.countDown();
+            return await(release);
+        }));
+        blocker.start();
+
+        try
+        {
+            started.await(1, TimeUnit.SECONDS);
+            executor.run(() -> true, Deadline.after(10));
+        }
+        finally
+        {
+            release.countDown();
+            blocker.join();
+        }
+    }
+
+    @Test
+    public void testAcceptsOnceThereIsRoom() throws Exception
+    {
+        SearchExecutor executor = new SearchExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread blocker = new Thread(() -> executor.run(() -> await(release)));
+        blocker.start();
+
+        release.countDown();
+        blocker.join();
+
+        assertThat(executor.run(() -> true, Deadline.after(1_000)), is(true));
+    }
+
+    @Test
+    public void testGivesBackThePlaceOfAQueuedSearchThatTimesOut() throws Exception
+    {
+        SearchExecutor executor = new SearchExecutor(1, 2);
+
+        //Queued behind a search that holds the only thread, so it times out before it starts
+        CountDownLatch release = new CountDownLatch(1);
+        Thread blocker = startBlocking(executor, release);
+        try
+        {
+            executor.run(() -> true, Deadline.after(10));
+        }
+        catch (SearchRejectedException expected)
+        {
+        }
+        release.countDown();
+        blocker.join();
+
+        //Both places are free again, so a second search gets a place next to a blocked one, and is only
+        //rejected for not finishing in time
+        CountDownLatch secondRelease = new CountDownLatch(1);
+        Thread secondBlocker = startBlocking(executor, secondRelease);
+        try
+        {
+            executor.run(() -> true, Deadline.after(50));
+        }
+        catch (SearchRejectedException ex)
+        {
+            assertThat(ex.getMessage(), containsString("did not finish in time"));
+        }
+        finally
+        {
+            secondRelease.countDown();
+            secondBlocker.join();
+        }
+    }
+
+    @Test(expected = SearchRejectedException.class)
+    public void testRejectsWhenTheSearchOverruns() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+
+        try
+        {
+            instance.run(() -> await(release), Deadline.after(10));
+        }
+        finally
+        {
+            release.countDown();
+        }
+    }
+
+    /**
+     * @return A thread running a search that holds one of the executor's threads until it is released.
+     */
+    private static Thread startBlocking(SearchExecutor executor, CountDownLatch release) throws InterruptedException
+    {
+        CountDownLatch started = new CountDownLatch(1);
+
+        Thread blocker = new Thread(() -> executor.run(() ->
+        {
+            started.countDown();
+            return await(release);
+        }));
+        blocker.start();
+        started.await(1, TimeUnit.SECONDS);
+
+        return blocker;
+    }
+
+    private static boolean await(CountDownLatch latch)
+    {
+        try
+        {
+            return latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException ex)
+        {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.redroma.lexis.service.words.DictionaryCodes.Age;
+import tech.redroma.lexis.service.words.LexisWord;
+import tech.redroma.lexis.service.words.PackedStrings;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.lexis.service.Fixtures.toList;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class SearchOptionsTest
+{
+
+    private static final String VERSION = "v1";
+
+    private List<Facet<?>> facets;
+    private Map<String, Ranking> rankings;
+    private Map<String, String> parameters;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        List<LexisWord> words = Arrays.asList(Fixtures.word("C", "C"),
+                                              Fixtures.word("C", "B"),
+                                              Fixtures.word("F", "A"),
+                                              Fixtures.word("C", "A"));
+
+        String[][] formKeys = { { "amo" }, { "puella" }, { "sum" }, { "rex" } };
+
+        facets = Arrays.asList(Facet.of("age", Age.class, words.size(), id -> words.get(id).getSupplementalInformation().getAge()));
+        rankings = Collections.singletonMap("frequency", Ranking.byFrequency(id -> words.get(id).getSupplementalInformation(), PackedStrings.of(formKeys)));
+        parameters = new HashMap<>();
+    }
+
+    @Test
+    public void testWithoutParameters()
+    {
+        SearchOptions instance = fromQuery();
+
+        assertThat(instance.isEmpty(), is(true));
+        assertThat(toList(instance.apply(new int[] { 1, 2 }).wordIds()), contains(1, 2));
+        assertThat(toList(instance.allWords(4).wordIds()), contains(0, 1, 2, 3));
+    }
+
+    @Test
+    public void testLimit()
+    {
+        parameters.put("limit", "2");
+        SearchOptions instance = fromQuery();
+
+        assertThat(instance.isEmpty(), is(false));
+        assertThat(toList(instance.allWords(4).wordIds()), contains(0, 1));
+    }
+
+    @Test
+    public void testRank()
+    {
+        parameters.put("rank", "frequency");
+        SearchOptions instance = fromQuery();
+
+        assertThat(toList(instance.allWords(4).wordIds()), contains(2, 3, 1, 0));
+    }
+
+    @Test
+    public void testRankWithLimitAndFilter()
+    {
+        parameters.put("rank", "frequency");
+        parameters.put("limit", "2");
+        parameters.put("age", "C");
+        SearchOptions instance = fromQuery();
+
+        assertThat(toList(instance.allWords(4).wordIds()), contains(3, 1));
+        assertThat(toList(instance.apply(new int[] { 0, 1, 2 }).wordIds()), contains(1, 0));
+    }
+
+    @Test
+    public void testPaging()
+    {
+        parameters.put("limit", "3");
+        SearchOptions.Page page = fromQuery().apply(new int[] { 0, 1, 2, 3, 5, 8, 13 });
+
+        assertThat(toList(page.wordIds()), contains(0, 1, 2));
+        assertThat(page.nextCursor(), notNullValue());
+
+        parameters.put("cursor", page.nextCursor());
+        page = fromQuery().apply(new int[] { 0, 1, 2, 3, 5, 8, 13 });
+
+        assertThat(toList(page.wordIds()), contains(3, 5, 8));
+        assertThat(page.nextCursor(), notNullValue());
+
+        parameters.put("cursor", page.nextCursor());
+        page = fromQuery().apply(new int[] { 0, 1, 2, 3, 5, 8, 13 });
+
+        assertThat(toList(page.wordIds()), contains(13));
+        assertThat(page.nextCursor(), nullValue());
+    }
+
+    @Test
+    public void testPagingWhenPageIsExactlyFull()
+    {
+        parameters.put("limit", "2");
+        SearchOptions.Page page = fromQuery().apply(new int[] { 4, 7 });
+
+        assertThat(toList(page.wordIds()), contains(4, 7));
+        assertThat(page.nextCursor(), nullValue());
+    }
+
+    @Test
+    public void testPagingWithFilter()
+    {
+        parameters.put("limit", "1");
+        parameters.put("age", "C");
+        SearchOptions.Page page = fromQuery().allWords(4);
+
+        assertThat(toList(page.wordIds()), contains(0));
+
+        parameters.put("cursor", page.nextCursor());
+        page = fromQuery().allWords(4);
+        assertThat(toList(page.wordIds()), contains(1));
+
+        parameters.put("cursor", page.nextCursor());
+        page = fromQuery().allWords(4);
+        assertThat(toList(page.wordIds()), contains(3));
+        assertThat(page.nextCursor(), nullValue());
+    }
+
+    @Test
+    public void testPagingBitmapWithFilter()
+    {
+        parameters.put("limit", "1");
+        parameters.put("age", "C");
+        SearchOptions.Page page = fromQuery().apply(allOf(4));
+
+        assertThat(toList(page.wordIds()), contains(0));
+
+        parameters.put("cursor", page.nextCursor());
+        page = fromQuery().apply(allOf(4));
+        assertThat(toList(page.wordIds()), contains(1));
+
+        parameters.put("cursor", page.nextCursor());
+        page = fromQuery().apply(allOf(4));
+        assertThat(toList(page.wordIds()), contains(3));
+        assertThat(page.nextCursor(), nullValue());
+    }
+
+    @Test
+    public void testRankBitmapWithFilter()
+    {
+        parameters.put("rank", "frequency");
+        parameters.put("age", "C");
+
+        assertThat(toList(fromQuery().apply(allOf(4)).wordIds()), contains(3, 1, 0));
+    }
+
+    @Test
+    public void testPagingStopsReadingWhenPageIsFull()
+    {
+        parameters.put("limit", "2");
+        List<Integer> read = Lists.create();
+
+        fromQuery().apply(IntStream.range(0, 100).peek(read::add));
+
+        assertThat(read, contains(0, 1, 2));
+    }
+
+    @Test
+    public void testKey()
+    {
+        parameters.put("age", "f,C,c");
+        parameters.put("limit", "2");
+        parameters.put("timeoutMs", "50");
+        String key = fromQuery().key();
+
+        parameters.clear();
+        parameters.put("limit", "2");
+        parameters.put("age", "C,F");
+        assertThat(fromQuery().key(), is(key));
+
+        parameters.put("rank", "frequency");
+        assertThat(fromQuery().key(), not(key));
+
+        parameters.remove("rank");
+        parameters.put("limit", "3");
+        assertThat(fromQuery().key(), not(key));
+
+        parameters.put("limit", "2");
+        parameters.put("cursor", Cursor.encode(VERSION, 1));
+        assertThat(fromQuery().key(), not(key));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCursorWithRank()
+    {
+        parameters.put("rank", "frequency");
+        parameters.put("cursor", Cursor.encode(VERSION, 1));
+        fromQuery();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCursorFromAnotherVersion()
+    {
+        parameters.put("cursor", Cursor.encode("v0", 1));
+        fromQuery();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownRank()
+    {
+        parameters.put("rank", "length");
+        fromQuery();
+    }
+
+    @Test
+    public void testInvalidLimit()
+    {
+        for (String limit : Arrays.asList("0", "-1", "ten"))
+        {
+            parameters.put("limit", limit);
+
+            try
+            {
+                fromQuery();
+                throw new AssertionError("Expected limit " + limit + " to be rejected");
+            }
+            catch (IllegalArgumentException expected)
+            {
+            }
+        }
+    }
+
+    private static BitSet allOf(int wordCount)
+    {
+        BitSet wordIds = new BitSet();
+        wordIds.set(0, wordCount);
+
+        return wordIds;
+    }
+
+    private SearchOptions fromQuery()
+    {
+        return SearchOptions.fromQuery(parameters::get, facets, rankings, VERSION);
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.lexis.service.Fixtures.toList;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class SearchPlanTest
+{
+
+    private static final int MANY = SearchPlan.PARALLEL_THRESHOLD * 2;
+
+    @Test
+    public void testChoosesIndexProbeForCandidates() throws Exception
+    {
+        SearchPlan plan = SearchPlan.choose(new int[] { 1, 3 }, 5, id -> true, true);
+
+        assertThat(plan.candidateCount(), is(2));
+        assertThat(isParallel(plan), is(false));
+    }
+
+    @Test
+    public void testChoosesSequentialScanWithoutCandidates() throws Exception
+    {
+        SearchPlan plan = SearchPlan.choose(null, 5, id -> true, true);
+
+        assertThat(plan.candidateCount(), is(5));
+        assertThat(isParallel(plan), is(false));
+    }
+
+    @Test
+    public void testChoosesParallelScanOnlyWhenReadingManyMatches() throws Exception
+    {
+        int[] candidates = IntStream.range(0, MANY).toArray();
+
+        assertThat(isParallel(SearchPlan.choose(null, MANY, id -> true, true)), is(true));
+        assertThat(isParallel(SearchPlan.choose(candidates, MANY, id -> true, true)), is(true));
+        assertThat(isParallel(SearchPlan.choose(null, MANY, id -> true, false)), is(false));
+        assertThat(isParallel(SearchPlan.choose(candidates, MANY, id -> true, false)), is(false));
+        assertThat(isParallel(SearchPlan.choose(new int[] { 1, 3 }, MANY, id -> true, true)), is(false));
+    }
+
+    @Test
+    public void testStreamKeepsMatchesInOrder() throws Exception
+    {
+        int[] expected = IntStream.range(0, MANY).filter(id -> id % 7 == 0).toArray();
+
+        int[] sequential = SearchPlan.choose(null, MANY, id -> id % 7 == 0, false).stream(Deadline.NONE).toArray();
+        int[] parallel = SearchPlan.choose(null, MANY, id -> id % 7 == 0, true).stream(Deadline.NONE).toArray();
+
+        assertThat(toList(sequential), is(toList(expected)));
+        assertThat(toList(parallel), is(toList(expected)));
+    }
+
+    @Test
+    public void testStreamFromCandidates() throws Exception
+    {
+        SearchPlan plan = SearchPlan.choose(new int[] { 1, 2, 3, 4 }, 10, id -> id % 2 == 0, false);
+
+        assertThat(toList(plan.stream(Deadline.NONE).toArray()), contains(2, 4));
+    }
+
+    @Test
+    public void testExact() throws Exception
+    {
+        SearchPlan plan = SearchPlan.exact(new int[] { 2, 5 });
+
+        assertThat(plan.candidateCount(), is(2));
+        assertThat(toList(plan.stream(Deadline.NONE).toArray()), contains(2, 5));
+    }
+
+    @Test
+    public void testMatchesAmong() throws Exception
+    {
+        BitSet among = new BitSet();
+        among.set(4);
+        among.set(6);
+        among.set(9);
+
+        //Words outside the candidates from the index are checked too
+        SearchPlan plan = SearchPlan.choose(new int[] { 1, 2 }, 10, id -> id % 2 == 0, true);
+        assertThat(toList(plan.matchesAmong(among, Deadline.NONE).stream().toArray()), contains(4, 6));
+
+        SearchPlan exact = SearchPlan.exact(new int[] { 2, 6, 9 });
+        assertThat(toList(exact.matchesAmong(among, Deadline.NONE).stream().toArray()), contains(6, 9));
+    }
+
+    @Test
+    public void testStreamStopsAtDeadline() throws Exception
+    {
+        Deadline deadline = Deadline.after(0);
+        SearchPlan plan = SearchPlan.choose(null, 10, id -> true, false);
+
+        assertThat(toList(plan.stream(deadline).toArray()), is(empty()));
+        assertThat(deadline.wasMissed(), is(true));
+    }
+
+    private static boolean isParallel(SearchPlan plan)
+    {
+        return plan.stream(Deadline.NONE).isParallel();
+    }
+
+}
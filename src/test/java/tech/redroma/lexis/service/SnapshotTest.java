@@ -0,0 +1,214 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class SnapshotTest
+{
+
+    private static final String VERSION = "0123456789abcdef";
+
+    private static final Snapshot.Fingerprint JSON = new Snapshot.Fingerprint(3, 0x12345678);
+
+    private Corpus corpus;
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        corpus = new Corpus(Arrays.asList(Fixtures.word("C", "A"), Fixtures.word("F", "B")), VERSION);
+        directory = Files.createTempDirectory("snapshot");
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        try (Stream<Path> files = Files.list(directory))
+        {
+            files.forEach(path -> path.toFile().delete());
+        }
+
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        Corpus result = Snapshot.read(ByteBuffer.wrap(write(corpus)), VERSION, JSON);
+
+        assertThat(result.words(), is(corpus.words()));
+        assertThat(result.version(), is(VERSION));
+    }
+
+    @Test
+    public void testReadAcceptsAnyVersion() throws Exception
+    {
+        Corpus result = Snapshot.read(ByteBuffer.wrap(write(corpus)), null, null);
+
+        assertThat(result.version(), is(VERSION));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadRejectsOtherVersion() throws Exception
+    {
+        Snapshot.read(ByteBuffer.wrap(write(corpus)), "fedcba9876543210", null);
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadRejectsOtherJson() throws Exception
+    {
+        Snapshot.read(ByteBuffer.wrap(write(corpus)), VERSION, new Snapshot.Fingerprint(3, 0x87654321));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadRejectsOtherFormat() throws Exception
+    {
+        byte[] snapshot = write(corpus);
+        ByteBuffer.wrap(snapshot).putInt(4, Snapshot.FORMAT_VERSION + 1);
+
+        Snapshot.read(ByteBuffer.wrap(snapshot), VERSION, null);
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadRejectsCorruptSnapshot() throws Exception
+    {
+        byte[] snapshot = write(corpus);
+        snapshot[snapshot.length - 1] ^= 1;
+
+        Snapshot.read(ByteBuffer.wrap(snapshot), VERSION, null);
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadRejectsOtherFiles() throws Exception
+    {
+        Snapshot.read(ByteBuffer.wrap("[ ]".getBytes()), null, null);
+    }
+
+    @Test
+    public void testMap() throws Exception
+    {
+        Path file = directory.resolve(Snapshot.RESOURCE);
+        Files.write(file, write(corpus));
+
+        Corpus result = Snapshot.map(file, VERSION, JSON);
+
+        assertThat(result.words(), is(corpus.words()));
+    }
+
+    @Test
+    public void testMain() throws Exception
+    {
+        Path json = directory.resolve("words.json");
+        Path file = directory.resolve(Snapshot.RESOURCE);
+        Files.write(json, "[ ]".getBytes());
+
+        Snapshot.main(new String[] { json.toString(), file.toString() });
+
+        Corpus result = Snapshot.map(file, null, Snapshot.Fingerprint.of(json.toUri().toURL()));
+        assertThat(result.words(), is(empty()));
+
+        URL version = directory.resolve(Snapshot.VERSION_RESOURCE).toUri().toURL();
+        assertThat(Snapshot.readVersion(version), is(result.version()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testMainSnapshotIsStaleOnceTheJsonIsReplaced() throws Exception
+    {
+        Path json = directory.resolve("words.json");
+        Path file = directory.resolve(Snapshot.RESOURCE);
+        Files.write(json, "[ ]".getBytes());
+
+        Snapshot.main(new String[] { json.toString(), file.toString() });
+
+        Files.write(json, "[ ]\n".getBytes());
+
+        Snapshot.map(file, null, Snapshot.Fingerprint.of(json.toUri().toURL()));
+    }
+
+    @Test
+    public void testFingerprint() throws Exception
+    {
+        Path json = directory.resolve("words.json");
+        byte[] bytes = new byte[Snapshot.Fingerprint.SAMPLES * Snapshot.Fingerprint.BLOCK_LENGTH * 4 + 1];
+        Arrays.fill(bytes, (byte) ' ');
+        Files.write(json, bytes);
+
+        Snapshot.Fingerprint fingerprint = Snapshot.Fingerprint.of(json.toUri().toURL());
+        assertThat(fingerprint.length, is((long) bytes.length));
+        assertThat(Snapshot.Fingerprint.of(json.toUri().toURL()), is(fingerprint));
+
+        //The last byte is always read
+        bytes[bytes.length - 1] = '\n';
+        Files.write(json, bytes);
+        assertThat(Snapshot.Fingerprint.of(json.toUri().toURL()), not(fingerprint));
+
+        //So is a longer file
+        Files.write(json, Arrays.copyOf(bytes, bytes.length + 1));
+        assertThat(Snapshot.Fingerprint.of(json.toUri().toURL()).length, is(bytes.length + 1L));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadVersionRejectsOtherFiles() throws Exception
+    {
+        Path file = directory.resolve(Snapshot.VERSION_RESOURCE);
+        Files.write(file, "not a version".getBytes());
+
+        Snapshot.readVersion(file.toUri().toURL());
+    }
+
+    @Test
+    public void testMainWithoutCorpus() throws Exception
+    {
+        Path file = directory.resolve(Snapshot.RESOURCE);
+
+        Snapshot.main(new String[] { directory.resolve("missing.json").toString(), file.toString() });
+
+        assertThat(Files.exists(file), is(false));
+    }
+
+    private static byte[] write(Corpus corpus) throws Exception
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Snapshot.write(corpus, JSON, output);
+
+        return output.toByteArray();
+    }
+
+}
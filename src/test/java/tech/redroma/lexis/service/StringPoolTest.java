@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.redroma.lexis.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class StringPoolTest
+{
+
+    private StringPool instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        instance = new StringPool();
+    }
+
+    @Test
+    public void testShare() throws Exception
+    {
+        String first = new String("amo");
+        String second = new String("amo");
+
+        assertThat(instance.share(first), sameInstance(first));
+        assertThat(instance.share(second), sameInstance(first));
+        assertThat(instance.share("amare"), is("amare"));
+
+        assertThat(instance.shared(), is(1L));
+        assertThat(instance.bytesSaved(), greaterThan(0L));
+    }
+
+    @Test
+    public void testShareTheSameInstance() throws Exception
+    {
+        String string = "amo";
+
+        instance.share(string);
+        instance.share(string);
+
+        //Nothing was saved, since there was only ever one copy
+        assertThat(instance.shared(), is(0L));
+        assertThat(instance.bytesSaved(), is(0L));
+    }
+
+    @Test
+    public void testShareNull() throws Exception
+    {
+        assertThat(instance.share(null), nullValue());
+        assertThat(instance.shared(), is(0L));
+    }
+
+}
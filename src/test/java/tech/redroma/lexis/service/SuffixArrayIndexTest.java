@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.lexis.service.Fixtures.toList;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class SuffixArrayIndexTest
+{
+
+    private String[][] formKeys;
+
+    private SuffixArrayIndex instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        formKeys = new String[][]
+        {
+            { "amo", "amare", "amaui", "amatus" },
+            { "puella", "puellae" },
+            { "ambulo", "ambulare" },
+            { "amicus", "amici" }
+        };
+
+        instance = SuffixArrayIndex.of(formKeys);
+    }
+
+    @Test
+    public void testWordsContaining()
+    {
+        assertThat(toList(instance.wordsContaining("are")), contains(0, 2));
+        assertThat(toList(instance.wordsContaining("ell")), contains(1));
+        assertThat(toList(instance.wordsContaining("amavi")), contains(0));
+    }
+
+    @Test
+    public void testWordsContainingWhenNoMatches()
+    {
+        assertThat(toList(instance.wordsContaining("ambulav")), is(empty()));
+        assertThat(toList(instance.wordsContaining("zzz")), is(empty()));
+        assertThat(toList(instance.wordsContaining("areama")), is(empty()));
+    }
+
+    @Test
+    public void testWordsContainingWholeForms()
+    {
+        assertThat(toList(instance.wordsContaining("amo")), contains(0));
+        assertThat(toList(instance.wordsContaining("amicus")), contains(3));
+        assertThat(toList(instance.wordsContaining("amoa")), is(empty()));
+    }
+
+    @Test
+    public void testWordsContainingSeparator()
+    {
+        assertThat(toList(instance.wordsContaining("amo\u0000amare")), is(empty()));
+    }
+
+    @Test
+    public void testEstimatedSizeInBytes()
+    {
+        assertThat(instance.estimatedSizeInBytes(), greaterThan(0L));
+    }
+
+    @Test
+    public void testWordsContainingShortTerms()
+    {
+        assertThat(toList(instance.wordsContaining("ae")), contains(1));
+        assertThat(toList(instance.wordsContaining("m")), contains(0, 2, 3));
+        assertThat(toList(instance.wordsContaining("")), contains(0, 1, 2, 3));
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.lexis.service.words.PackedStrings;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.lexis.service.Fixtures.toList;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class TrigramIndexTest
+{
+
+    private String[][] formKeys;
+
+    private TrigramIndex instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        formKeys = new String[][]
+        {
+            { "amo", "amare", "amaui", "amatus" },
+            { "puella", "puellae" },
+            { "ambulo", "ambulare" },
+            { "amicus", "amici" }
+        };
+
+        instance = TrigramIndex.of(PackedStrings.of(formKeys));
+    }
+
+    @Test
+    public void testWordsContaining()
+    {
+        assertThat(toList(instance.wordsContaining("are")), contains(0, 2));
+        assertThat(toList(instance.wordsContaining("ell")), contains(1));
+        assertThat(toList(instance.wordsContaining("amavi")), contains(0));
+    }
+
+    @Test
+    public void testWordsContainingWhenNoMatches()
+    {
+        assertThat(toList(instance.wordsContaining("ambulav")), is(empty()));
+        assertThat(toList(instance.wordsContaining("zzz")), is(empty()));
+        assertThat(toList(instance.wordsContaining("areama")), is(empty()));
+    }
+
+    @Test
+    public void testWordsContainingShortTerms()
+    {
+        assertThat(toList(instance.wordsContaining("ae")), contains(1));
+        assertThat(toList(instance.wordsContaining("m")), contains(0, 2, 3));
+        assertThat(toList(instance.wordsContaining("")), contains(0, 1, 2, 3));
+    }
+
+    @Test
+    public void testPlanFor()
+    {
+        assertThat(toList(instance.planFor("are", false).stream(Deadline.NONE).toArray()), contains(0, 2));
+        assertThat(toList(instance.planFor("m", false).stream(Deadline.NONE).toArray()), contains(0, 2, 3));
+        assertThat(toList(instance.planFor("zzz", false).stream(Deadline.NONE).toArray()), is(empty()));
+
+        //Terms with a trigram are looked up, and shorter ones are checked against every word
+        assertThat(instance.planFor("ama", false).candidateCount(), is(1));
+        assertThat(instance.planFor("am", true).candidateCount(), is(formKeys.length));
+    }
+
+    @Test
+    public void testPlanForStopsAtDeadline()
+    {
+        Deadline deadline = Deadline.after(0);
+
+        assertThat(toList(instance.planFor("m", false).stream(deadline).toArray()), is(empty()));
+        assertThat(deadline.wasMissed(), is(true));
+    }
+
+}
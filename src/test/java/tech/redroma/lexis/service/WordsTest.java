@@ -41,7 +41,7 @@ public class WordsTest
     @Test
     public void testData()
     {
-        assertThat(Words.JSON_FILE, not(isEmptyOrNullString()));
+        assertThat(Words.CORPUS_VERSION, not(isEmptyOrNullString()));
         assertThat(Words.WORDS, not(empty()));
         assertThat(Words.WORDS.size(), greaterThanOrEqualTo(39_000));
     }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service.words;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class InflectionsTest
+{
+
+    @Test
+    public void testFirstDeclensionNoun()
+    {
+        LexisWord puella = word(new Noun(Noun.Declension.First, Noun.Gender.Female), "puella", "puellae");
+        Set<String> inflections = Inflections.of(puella);
+
+        assertThat(inflections, hasItem("puella"));
+        assertThat(inflections, hasItem("puellam"));
+        assertThat(inflections, hasItem("puellarum"));
+        assertThat(inflections, hasItem("puellis"));
+    }
+
+    @Test
+    public void testSecondDeclensionNeuterNoun()
+    {
+        LexisWord bellum = word(new Noun(Noun.Declension.Second, Noun.Gender.Neuter), "bellum", "belli");
+        Set<String> inflections = Inflections.of(bellum);
+
+        assertThat(inflections, hasItem("bella"));
+        assertThat(inflections, hasItem("bellorum"));
+        assertThat(inflections, not(hasItem("bellos")));
+    }
+
+    @Test
+    public void testThirdDeclensionNoun()
+    {
+        LexisWord rex = word(new Noun(Noun.Declension.Third, Noun.Gender.Male), "rex", "regis");
+        Set<String> inflections = Inflections.of(rex);
+
+        assertThat(inflections, hasItem("regem"));
+        assertThat(inflections, hasItem("regibus"));
+    }
+
+    @Test
+    public void testFirstConjugationVerb()
+    {
+        LexisWord amo = word(new Verb(Verb.Conjugation.First, Verb.Type.Transitive), "amo", "amare", "amavi", "amatus");
+        Set<String> inflections = Inflections.of(amo);
+
+        assertThat(inflections, hasItem("amat"));
+        assertThat(inflections, hasItem("amabant"));
+        assertThat(inflections, hasItem("amavissent"));
+        assertThat(inflections, hasItem("amatur"));
+        assertThat(inflections, hasItem("amatorum"));
+    }
+
+    @Test
+    public void testThirdConjugationIoVerb()
+    {
+        LexisWord capio = word(new Verb(Verb.Conjugation.Third, Verb.Type.Transitive), "capio", "capere", "cepi", "captus");
+        Set<String> inflections = Inflections.of(capio);
+
+        assertThat(inflections, hasItem("capit"));
+        assertThat(inflections, hasItem("capiunt"));
+        assertThat(inflections, hasItem("ceperant"));
+        assertThat(inflections, hasItem("captum"));
+    }
+
+    @Test
+    public void testDeponentVerb()
+    {
+        LexisWord hortor = word(new Verb(Verb.Conjugation.First, Verb.Type.Deponent), "hortor", "hortari", "-", "hortatus");
+        Set<String> inflections = Inflections.of(hortor);
+
+        assertThat(inflections, hasItem("hortatur"));
+        assertThat(inflections, hasItem("hortabantur"));
+        assertThat(inflections, not(hasItem("-")));
+    }
+
+    @Test
+    public void testOtherWordsOnlyYieldTheirForms()
+    {
+        LexisWord cum = word(new Preposition(Preposition.CaseType.Ablative), "cum");
+        assertThat(Inflections.of(cum), contains("cum"));
+    }
+
+    private static LexisWord word(WordType wordType, String... forms)
+    {
+        return new LexisWord(Arrays.asList(forms), Lists.emptyList(), wordType, new SupplementalInformation());
+    }
+
+}
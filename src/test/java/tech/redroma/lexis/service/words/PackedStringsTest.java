@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service.words;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class PackedStringsTest
+{
+
+    private String[][] groups;
+
+    private PackedStrings instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        groups = new String[][]
+        {
+            { "amo", "amare", "amavi" },
+            { },
+            { "puella", "" },
+            { "ā" }
+        };
+
+        instance = PackedStrings.of(groups);
+    }
+
+    @Test
+    public void testGet() throws Exception
+    {
+        assertThat(instance.size(), is(4));
+        assertThat(instance.sizeOf(0), is(3));
+        assertThat(instance.sizeOf(1), is(0));
+        assertThat(instance.get(0, 1), is("amare"));
+        assertThat(instance.get(2, 1), is(""));
+        assertThat(instance.lengthOf(2, 0), is(6));
+    }
+
+    @Test
+    public void testToArrays() throws Exception
+    {
+        assertArrayEquals(groups, instance.toArrays());
+    }
+
+    @Test
+    public void testAnyContains() throws Exception
+    {
+        assertThat(instance.anyContains(0, "mav"), is(true));
+        assertThat(instance.anyContains(0, "amo"), is(true));
+        assertThat(instance.anyContains(2, "lla"), is(true));
+        assertThat(instance.anyContains(3, "ā"), is(true));
+
+        //Matches may not run from one string into the next
+        assertThat(instance.anyContains(0, "amoamare"), is(false));
+        assertThat(instance.anyContains(0, "vip"), is(false));
+        assertThat(instance.anyContains(1, "a"), is(false));
+    }
+
+    @Test
+    public void testAnyContainsWithEmptyKey() throws Exception
+    {
+        assertThat(instance.anyContains(2, ""), is(true));
+        assertThat(instance.anyContains(1, ""), is(false));
+    }
+
+    @Test
+    public void testBuilder() throws Exception
+    {
+        PackedStrings result = new PackedStrings.Builder()
+            .add("amo")
+            .add("amare")
+            .add("amavi")
+            .endGroup()
+            .endGroup()
+            .addGroup(Arrays.asList("puella", ""))
+            .addGroup(Arrays.asList("ā"))
+            .build();
+
+        assertArrayEquals(groups, result.toArrays());
+    }
+
+    @Test
+    public void testBuilderGrows() throws Exception
+    {
+        PackedStrings.Builder builder = new PackedStrings.Builder();
+
+        for (int i = 0; i < 1000; ++i)
+        {
+            builder.add("word" + i).add("form" + i).endGroup();
+        }
+
+        PackedStrings result = builder.build();
+
+        assertThat(result.size(), is(1000));
+        assertThat(result.get(999, 1), is("form999"));
+        assertThat(result.anyContains(500, "d500"), is(true));
+    }
+
+}
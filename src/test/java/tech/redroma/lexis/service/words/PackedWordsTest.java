@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service.words;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.gson.JsonObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.lexis.service.words.DictionaryCodes.*;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class PackedWordsTest
+{
+
+    private List<LexisWord> words;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        SupplementalInformation information = new SupplementalInformation(Age.A, SubjectArea.X, GeographicalArea.A, Frequency.B, Source.X);
+
+        words = Arrays.asList(
+            new LexisWord(Arrays.asList("amo", "amare", "amavi", "amatus"),
+                          Arrays.asList(new Definition(Arrays.asList("love", "like")), new Definition(Arrays.asList("be fond of"))),
+                          new Verb(Verb.Conjugation.First, Verb.Type.Transitive),
+                          information),
+            new LexisWord(Arrays.asList("puella", "puellae"),
+                          Arrays.asList(new Definition(Arrays.asList("girl"))),
+                          new Noun(Noun.Declension.First, Noun.Gender.Female),
+                          information),
+            new LexisWord(Arrays.asList("cum"),
+                          Collections.emptyList(),
+                          new Preposition(Preposition.CaseType.Ablative),
+                          new SupplementalInformation(Age.X, SubjectArea.A, GeographicalArea.X, Frequency.A, Source.A)),
+            new LexisWord(Arrays.asList("bene", "ā"),
+                          Arrays.asList(new Definition(Arrays.asList("well", "love"))),
+                          WordType.ADVERB,
+                          information),
+            LexisWord.fromJSON(new JsonObject()));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        List<LexisWord> result = PackedWords.read(ByteBuffer.wrap(pack(words)));
+
+        assertThat(result, is(words));
+    }
+
+    @Test
+    public void testRoundTripKeepsJSON() throws Exception
+    {
+        List<LexisWord> result = PackedWords.read(ByteBuffer.wrap(pack(words)));
+
+        for (int i = 0; i < words.size(); ++i)
+        {
+            assertThat(result.get(i).asJSON(), is(words.get(i).asJSON()));
+        }
+    }
+
+    @Test
+    public void testRoundTripSharesStrings() throws Exception
+    {
+        List<LexisWord> result = PackedWords.read(ByteBuffer.wrap(pack(words)));
+
+        assertThat(result.get(3).getDefinitions().get(0).getTerms().get(1),
+                   sameInstance(result.get(0).getDefinitions().get(0).getTerms().get(0)));
+        assertThat(result.get(3).getWordType(), sameInstance(WordType.ADVERB));
+    }
+
+    @Test
+    public void testRoundTripWithNoWords() throws Exception
+    {
+        List<LexisWord> result = PackedWords.read(ByteBuffer.wrap(pack(Collections.emptyList())));
+
+        assertThat(result, is(empty()));
+    }
+
+    @Test
+    public void testReadLeavesBufferAfterWords() throws Exception
+    {
+        byte[] packed = pack(words);
+        ByteBuffer buffer = ByteBuffer.allocate(packed.length + 1);
+        buffer.put(packed).put((byte) 7).flip();
+
+        PackedWords.read(buffer);
+
+        assertThat(buffer.remaining(), is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadWhenTruncated() throws Exception
+    {
+        byte[] packed = pack(words);
+        PackedWords.read(ByteBuffer.wrap(Arrays.copyOf(packed, packed.length / 2)));
+    }
+
+    private static byte[] pack(List<LexisWord> words) throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        PackedWords.write(words, output);
+        output.flush();
+
+        return bytes.toByteArray();
+    }
+
+}
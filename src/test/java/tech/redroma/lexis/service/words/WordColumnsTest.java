@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.lexis.service.words;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.gson.JsonObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.lexis.service.words.DictionaryCodes.*;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@RunWith(AlchemyTestRunner.class)
+public class WordColumnsTest
+{
+
+    private List<LexisWord> words;
+
+    private WordColumns instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        SupplementalInformation information = new SupplementalInformation(Age.A, SubjectArea.X, GeographicalArea.A, Frequency.B, Source.X);
+
+        words = Arrays.asList(
+            new LexisWord(Arrays.asList("amo", "amare", "amavi", "amatus"),
+                          Arrays.asList(new Definition(Arrays.asList("love", "like")), new Definition(Arrays.asList("be fond of"))),
+                          new Verb(Verb.Conjugation.First, Verb.Type.Transitive),
+                          information),
+            new LexisWord(Arrays.asList("puella", "puellae"),
+                          Arrays.asList(new Definition(Arrays.asList("girl"))),
+                          new Noun(Noun.Declension.First, Noun.Gender.Female),
+                          new SupplementalInformation(Age.A, SubjectArea.X, GeographicalArea.A, Frequency.B, Source.X)),
+            new LexisWord(Arrays.asList("cum"),
+                          Collections.emptyList(),
+                          new Preposition(Preposition.CaseType.Ablative),
+                          new SupplementalInformation(Age.X, SubjectArea.A, GeographicalArea.X, Frequency.A, Source.A)),
+            new LexisWord(Arrays.asList("bene"),
+                          Arrays.asList(new Definition(Arrays.asList("well"))),
+                          WordType.ADVERB,
+                          information),
+            LexisWord.fromJSON(new JsonObject()));
+
+        instance = WordColumns.of(words);
+    }
+
+    @Test
+    public void testGet() throws Exception
+    {
+        assertThat(instance.size(), is(words.size()));
+
+        for (int id = 0; id < words.size(); ++id)
+        {
+            assertThat(instance.get(id), is(words.get(id)));
+            assertThat(instance.get(id).asJSON(), is(words.get(id).asJSON()));
+        }
+    }
+
+    @Test
+    public void testAsList() throws Exception
+    {
+        assertThat(instance.asList(), is(words));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testAsListWhenOutOfBounds() throws Exception
+    {
+        instance.asList().get(words.size());
+    }
+
+    @Test
+    public void testForms() throws Exception
+    {
+        PackedStrings forms = instance.forms();
+
+        assertThat(forms.size(), is(words.size()));
+        assertArrayEquals(new String[] { "puella", "puellae" }, forms.toArray(1));
+        assertThat(forms.sizeOf(4), is(0));
+    }
+
+    @Test
+    public void testWordTypeOf() throws Exception
+    {
+        assertThat(instance.wordTypeOf(0), is(words.get(0).getWordType()));
+        assertThat(instance.wordTypeOf(3), sameInstance(WordType.ADVERB));
+        assertThat(instance.wordTypeOf(4), is(nullValue()));
+    }
+
+    @Test
+    public void testSupplementalInformationOf() throws Exception
+    {
+        assertThat(instance.supplementalInformationOf(0), is(words.get(0).getSupplementalInformation()));
+        assertThat(instance.supplementalInformationOf(4), is(nullValue()));
+
+        //Equal values are decoded to one shared instance
+        assertThat(instance.supplementalInformationOf(1), sameInstance(instance.supplementalInformationOf(0)));
+        assertThat(instance.supplementalInformationOf(2), not(sameInstance(instance.supplementalInformationOf(0))));
+    }
+
+}